@@ -20,28 +20,27 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import com.example.firewatch.databinding.ActivityAdminBinding;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
 
 public class AdminActivity extends AppCompatActivity {
 
     private ActivityAdminBinding b;
     private AdminStatusAdapter statusAdapter;
     private List<BuildingConfig.Floor> building;
-    private Map<String, String> deviceStatusMap;
+    private LocationIndex.FireSets fireSets = new LocationIndex.FireSets();
     private int currentFloor = 1;
     private SharedPreferences prefs;
     private boolean hasActiveFire = false;
     private List<String> currentFireDevices = new ArrayList<>();
+    private boolean connectionFailed = false;
+    // Snapshots are turned into view state off the main thread; one entry per device
+    private final DashboardState.Producer states = new DashboardState.Producer(false, this::applyState);
     private boolean systemActive = true;
+    // Snapshots the monitoring service has just fetched or been pushed
+    private final StatusStream.Listener serviceUpdates = update -> {
+        connectionFailed = false;
+        states.submit(update.rows);
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -56,27 +55,42 @@ public class AdminActivity extends AppCompatActivity {
         }
 
         prefs = getSharedPreferences("firewatch_prefs", MODE_PRIVATE);
-        building = BuildingConfig.generateBuilding();
-        deviceStatusMap = new HashMap<>();
-
-        setupFloorSelector();
+        building = BuildingConfig.getBuilding();
+
+        // Floor plan is parsed in the background on first use; the selector follows its floor count
+        BuildingConfig.load(this, floors -> {
+            building = floors;
+            setupFloorSelector();
+            updateFloorMap();
+            // Place fires reported before the plan was loaded
+            states.refresh();
+        });
+        b.floorMapView.setOnRoomClickListener((room, onFire) -> Toast.makeText(this,
+                "Room " + room.id + (onFire ? " - FIRE" : ""), Toast.LENGTH_SHORT).show());
         setupRecyclers();
         setupButtons();
 
+        // Last stored snapshot first, so the map is populated before the network answers
+        StatusRepository.get().loadCached(this, states::submit);
         fetchAll();
         updateMonitoringButton();
+        // Renders the service's latest snapshot now if it has one, and every one after it
+        StatusStream.subscribe(serviceUpdates);
     }
 
     private void setupFloorSelector() {
         List<String> floorNames = new ArrayList<>();
-        for (int i = 1; i <= 8; i++) {
-            floorNames.add("Floor " + i);
+        for (BuildingConfig.Floor floor : building) {
+            floorNames.add("Floor " + floor.floorNumber);
         }
 
         ArrayAdapter<String> adapter = new ArrayAdapter<>(this,
                 android.R.layout.simple_spinner_item, floorNames);
         adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         b.spinnerFloor.setAdapter(adapter);
+        if (currentFloor >= 1 && currentFloor <= building.size()) {
+            b.spinnerFloor.setSelection(currentFloor - 1);
+        }
 
         b.spinnerFloor.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
@@ -103,7 +117,7 @@ public class AdminActivity extends AppCompatActivity {
     }
 
     private void setupButtons() {
-        b.btnRefresh.setOnClickListener(v -> fetchAll());
+        b.btnRefresh.setOnClickListener(v -> fetchAll(true));
         b.btnToggleService.setOnClickListener(v -> toggleSystemMaintenance());
         b.btnEmergencyCall.setOnClickListener(v -> makeEmergencyCall());
     }
@@ -124,6 +138,9 @@ public class AdminActivity extends AppCompatActivity {
         } else if (id == R.id.action_device_management) {
             startActivity(new Intent(this, AdminDeviceManagementActivity.class));
             return true;
+        } else if (id == R.id.action_diagnostics) {
+            startActivity(new Intent(this, DiagnosticsActivity.class));
+            return true;
         } else if (id == R.id.action_logout) {
             logout();
             return true;
@@ -133,87 +150,61 @@ public class AdminActivity extends AppCompatActivity {
     }
 
     private void fetchAll() {
-        SupabaseApi api = ApiClient.api(this);
-
-        api.getStatus().enqueue(new Callback<List<ApiModels.StatusRow>>() {
-            @Override
-            public void onResponse(Call<List<ApiModels.StatusRow>> call, Response<List<ApiModels.StatusRow>> res) {
-                if (!res.isSuccessful() || res.body() == null) {
-                    updateUIOffline();
-                    return;
-                }
-
-                LinkedHashMap<String, ApiModels.StatusRow> latest = new LinkedHashMap<>();
-                for (ApiModels.StatusRow row : res.body()) {
-                    if (!latest.containsKey(row.esp32_id)) {
-                        latest.put(row.esp32_id, row);
-                    }
-                }
-
-                // Check if any device has system_active = false (maintenance mode)
-                systemActive = true;
-                for (ApiModels.StatusRow row : latest.values()) {
-                    if (row.check != null && !row.check) {
-                        systemActive = false;
-                        break;
-                    }
-                }
-
-                deviceStatusMap.clear();
-                currentFireDevices.clear();
-                List<String> offlineDevices = new ArrayList<>();
-
-                for (ApiModels.StatusRow row : latest.values()) {
-                    String key = row.location != null && !row.location.isEmpty()
-                            ? row.location : row.esp32_id;
-
-                    if (!row.isSystemActive()) {
-                        deviceStatusMap.put(key, "maintenance");
-                    } else {
-                        deviceStatusMap.put(key, row.last_status);
-                    }
-
-                    if (row.isSystemActive() && "fire".equalsIgnoreCase(row.last_status)) {
-                        currentFireDevices.add(key);
-                    } else if ("failed".equalsIgnoreCase(row.last_status)) {
-                        offlineDevices.add(key);
-                    }
-                }
-
-                statusAdapter.setData(new ArrayList<>(latest.values()));
-
-                String newestTime = "--";
-                for (ApiModels.StatusRow s : latest.values()) {
-                    if (s.last_updated != null && (newestTime.equals("--") ||
-                            s.last_updated.compareTo(newestTime) > 0)) {
-                        newestTime = s.last_updated;
-                    }
-                }
+        fetchAll(false);
+    }
 
-                hasActiveFire = !currentFireDevices.isEmpty();
-                updateUI(currentFireDevices, offlineDevices, newestTime, latest.size());
+    /**
+     * @param force skip the shared snapshot cache, e.g. for the refresh button
+     */
+    private void fetchAll(boolean force) {
+        long maxAge = force ? -1 : StatusRepository.DEFAULT_MAX_AGE_MS;
 
-                if (hasActiveFire) {
-                    Integer fireFloor = extractFloorFromDeviceId(currentFireDevices.get(0));
-                    if (fireFloor != null && fireFloor >= 1 && fireFloor <= 8) {
-                        currentFloor = fireFloor;
-                        b.spinnerFloor.setSelection(fireFloor - 1);
-                    }
-                }
-
-                updateFloorMap();
-                updateMonitoringButton();
+        StatusRepository.get().fetch(this, maxAge, new StatusRepository.Listener() {
+            @Override
+            public void onSnapshot(List<ApiModels.StatusRow> rows) {
+                connectionFailed = false;
+                states.submit(rows);
             }
 
             @Override
-            public void onFailure(Call<List<ApiModels.StatusRow>> call, Throwable t) {
-                hasActiveFire = false;
+            public void onFailure(Throwable t) {
+                connectionFailed = true;
+                // Keep showing the last known devices rather than an empty list
+                List<ApiModels.StatusRow> cached = StatusRepository.get().latest();
+                if (cached != null) {
+                    states.submit(cached);
+                } else {
+                    hasActiveFire = false;
+                    statusAdapter.setData(new ArrayList<>());
+                }
                 updateUIOffline();
-                statusAdapter.setData(new ArrayList<>());
             }
         });
     }
 
+    // Main thread: the state is already computed, only views are touched here
+    private void applyState(DashboardState state) {
+        // Any device with system_active = false means maintenance mode
+        systemActive = !state.maintenance;
+        currentFireDevices = state.fires;
+        hasActiveFire = state.hasActiveFire();
+        fireSets = state.fireSets;
+
+        statusAdapter.setData(state.devices);
+        updateUI(state.fires, state.offline, state.newestTime, state.devices.size());
+        if (connectionFailed) updateUIOffline();
+
+        // Jump to a new fire once; later polls leave the chosen floor alone
+        BuildingConfig.Room fireRoom = state.newFireRoom;
+        if (fireRoom != null && fireRoom.floor <= building.size()) {
+            currentFloor = fireRoom.floor;
+            b.spinnerFloor.setSelection(fireRoom.floor - 1);
+        }
+
+        updateFloorMap();
+        updateMonitoringButton();
+    }
+
     private void updateUI(List<String> fires, List<String> offline, String newestTime, int totalDevices) {
         if (!systemActive) {
             b.txtStatus.setText("🔧 System Under Maintenance");
@@ -287,56 +278,7 @@ public class AdminActivity extends AppCompatActivity {
         if (currentFloor < 1 || currentFloor > building.size()) return;
 
         BuildingConfig.Floor floor = building.get(currentFloor - 1);
-        Set<String> fireRooms = new HashSet<>();
-
-        for (String location : deviceStatusMap.keySet()) {
-            String status = deviceStatusMap.get(location);
-            if ("fire".equalsIgnoreCase(status)) {
-                String roomNumber = extractRoomNumber(location);
-                Integer deviceFloor = extractFloorFromDeviceId(location);
-
-                if (deviceFloor != null && deviceFloor == currentFloor && roomNumber != null) {
-                    fireRooms.add(roomNumber);
-                }
-            }
-        }
-
-        b.floorMapView.setFloor(floor, fireRooms);
-    }
-
-    private Integer extractFloorFromDeviceId(String deviceId) {
-        if (deviceId == null || deviceId.isEmpty()) return null;
-        try {
-            if (deviceId.startsWith("STAIRS_")) {
-                String[] parts = deviceId.split("_");
-                if (parts.length >= 3) {
-                    return Integer.parseInt(parts[2]);
-                }
-            }
-            char firstChar = deviceId.charAt(0);
-            if (Character.isDigit(firstChar)) {
-                return Character.getNumericValue(firstChar);
-            }
-        } catch (Exception e) {
-            return null;
-        }
-        return null;
-    }
-
-    private String extractRoomNumber(String deviceId) {
-        if (deviceId == null || deviceId.isEmpty()) return null;
-        try {
-            if (deviceId.startsWith("STAIRS_")) {
-                return deviceId;
-            }
-            if (deviceId.contains("-")) {
-                String[] parts = deviceId.split("-");
-                return parts[0].trim();
-            }
-            return deviceId.trim();
-        } catch (Exception e) {
-            return deviceId;
-        }
+        b.floorMapView.setFloor(floor, fireSets.get(currentFloor));
     }
 
     private void makeEmergencyCall() {
@@ -365,69 +307,26 @@ public class AdminActivity extends AppCompatActivity {
 
     private void updateSystemCheckStatus(boolean active) {
         Toast.makeText(this, active ? "Activating system..." : "Entering maintenance mode...", Toast.LENGTH_SHORT).show();
-
-        // First, get all devices
-        SupabaseApi api = ApiClient.api(this);
-
-        api.getStatus().enqueue(new Callback<List<ApiModels.StatusRow>>() {
-            @Override
-            public void onResponse(Call<List<ApiModels.StatusRow>> call, Response<List<ApiModels.StatusRow>> response) {
-                if (!response.isSuccessful() || response.body() == null) {
-                    Toast.makeText(AdminActivity.this, "Failed to fetch devices", Toast.LENGTH_SHORT).show();
-                    return;
-                }
-
-                List<ApiModels.StatusRow> devices = response.body();
-                updateAllDevicesCheck(devices, active, 0);
-            }
-
-            @Override
-            public void onFailure(Call<List<ApiModels.StatusRow>> call, Throwable t) {
-                Toast.makeText(AdminActivity.this, "Error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
-            }
-        });
-    }
-
-    private void updateAllDevicesCheck(List<ApiModels.StatusRow> devices, boolean active, int index) {
-        if (index >= devices.size()) {
-            // All devices updated
-            systemActive = active;
-            Toast.makeText(this,
-                    active ? "System activated successfully" : "Maintenance mode enabled",
-                    Toast.LENGTH_SHORT).show();
-            fetchAll();
-            return;
-        }
-
-        SupabaseApi api = ApiClient.api(this);
-        ApiModels.UpdateSystemCheckRequest request = new ApiModels.UpdateSystemCheckRequest();
-        request.check = active;
-
-        String deviceId = devices.get(index).esp32_id;
-
-        api.updateDeviceCheck("eq." + deviceId, request).enqueue(new Callback<Void>() {
-            @Override
-            public void onResponse(Call<Void> call, Response<Void> response) {
-                if (response.isSuccessful()) {
-                    // Update next device
-                    updateAllDevicesCheck(devices, active, index + 1);
-                } else {
-                    Toast.makeText(AdminActivity.this,
-                            "Failed to update device: " + deviceId,
-                            Toast.LENGTH_SHORT).show();
-                    // Continue with next device anyway
-                    updateAllDevicesCheck(devices, active, index + 1);
-                }
-            }
-
-            @Override
-            public void onFailure(Call<Void> call, Throwable t) {
+        b.btnToggleService.setEnabled(false);
+        b.btnToggleService.setText("Updating...");
+
+        // One PATCH for every device, so the building is never left half in maintenance
+        BulkCheckUpdater.updateAll(ApiClient.api(this), active, succeeded -> {
+            b.btnToggleService.setEnabled(true);
+            if (succeeded) {
+                systemActive = active;
                 Toast.makeText(AdminActivity.this,
-                        "Error updating " + deviceId + ": " + t.getMessage(),
+                        active ? "System activated successfully" : "Maintenance mode enabled",
+                        Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(AdminActivity.this,
+                        "Failed to update devices, please try again",
                         Toast.LENGTH_SHORT).show();
-                // Continue with next device anyway
-                updateAllDevicesCheck(devices, active, index + 1);
             }
+            // Replaces "Updating..." whether or not the update went through
+            updateMonitoringButton();
+            StatusRepository.get().invalidate();
+            fetchAll(true);
         });
     }
 
@@ -482,4 +381,11 @@ public class AdminActivity extends AppCompatActivity {
         super.onResume();
         fetchAll();
     }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        states.close();
+        StatusStream.unsubscribe(serviceUpdates);
+    }
 }
\ No newline at end of file
@@ -49,37 +49,32 @@ public class AdminDeviceManagementActivity extends AppCompatActivity {
         adapter = new DeviceManagementAdapter(this::showEditDialog);
         recyclerDevices.setAdapter(adapter);
 
-        btnRefresh.setOnClickListener(v -> loadDevices());
+        btnRefresh.setOnClickListener(v -> loadDevices(true));
 
-        loadDevices();
+        loadDevices(false);
     }
 
-    private void loadDevices() {
+    private void loadDevices(boolean force) {
         progressBar.setVisibility(View.VISIBLE);
-        SupabaseApi api = ApiClient.api(this);
+        long maxAge = force ? -1 : StatusRepository.DEFAULT_MAX_AGE_MS;
 
-        api.getStatus().enqueue(new Callback<List<ApiModels.StatusRow>>() {
+        StatusRepository.get().fetch(this, maxAge, new StatusRepository.Listener() {
             @Override
-            public void onResponse(Call<List<ApiModels.StatusRow>> call, Response<List<ApiModels.StatusRow>> response) {
+            public void onSnapshot(List<ApiModels.StatusRow> rows) {
                 progressBar.setVisibility(View.GONE);
-                if (response.isSuccessful() && response.body() != null) {
-                    // Get unique devices by esp32_id (latest entry for each device)
-                    LinkedHashMap<String, ApiModels.StatusRow> uniqueDevices = new LinkedHashMap<>();
-                    for (ApiModels.StatusRow row : response.body()) {
-                        if (!uniqueDevices.containsKey(row.esp32_id)) {
-                            uniqueDevices.put(row.esp32_id, row);
-                        }
+                // Get unique devices by esp32_id (latest entry for each device)
+                LinkedHashMap<String, ApiModels.StatusRow> uniqueDevices = new LinkedHashMap<>();
+                for (ApiModels.StatusRow row : rows) {
+                    if (!uniqueDevices.containsKey(row.esp32_id)) {
+                        uniqueDevices.put(row.esp32_id, row);
                     }
-
-                    adapter.setDevices(new ArrayList<>(uniqueDevices.values()));
-                } else {
-                    Toast.makeText(AdminDeviceManagementActivity.this,
-                            "Failed to load devices", Toast.LENGTH_SHORT).show();
                 }
+
+                adapter.setDevices(new ArrayList<>(uniqueDevices.values()));
             }
 
             @Override
-            public void onFailure(Call<List<ApiModels.StatusRow>> call, Throwable t) {
+            public void onFailure(Throwable t) {
                 progressBar.setVisibility(View.GONE);
                 Toast.makeText(AdminDeviceManagementActivity.this,
                         "Error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
@@ -139,7 +134,9 @@ public class AdminDeviceManagementActivity extends AppCompatActivity {
                 if (response.isSuccessful()) {
                     Toast.makeText(AdminDeviceManagementActivity.this,
                             "Device updated successfully", Toast.LENGTH_SHORT).show();
-                    loadDevices();
+                    // Location edits don't touch last_updated, so a delta sync would miss them
+                    StatusRepository.get().invalidate();
+                    loadDevices(true);
                 } else {
                     Toast.makeText(AdminDeviceManagementActivity.this,
                             "Update failed: " + response.code(), Toast.LENGTH_SHORT).show();
@@ -6,21 +6,28 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.chip.Chip;
 
-import java.util.ArrayList;
 import java.util.List;
 
-public class AdminLogsAdapter extends RecyclerView.Adapter<AdminLogsAdapter.VH> {
+public class AdminLogsAdapter extends ListAdapter<ApiModels.LogRow, AdminLogsAdapter.VH> {
 
-    private final List<ApiModels.LogRow> data = new ArrayList<>();
+    public AdminLogsAdapter() {
+        super(RowDiff.LOGS);
+        setHasStableIds(true);
+    }
 
+    // Diffed by log id in the background; only new rows are bound
     public void setData(List<ApiModels.LogRow> items) {
-        data.clear();
-        if (items != null) data.addAll(items);
-        notifyDataSetChanged();
+        submitList(items);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).id;
     }
 
     @NonNull
@@ -33,14 +40,15 @@ public class AdminLogsAdapter extends RecyclerView.Adapter<AdminLogsAdapter.VH>
 
     @Override
     public void onBindViewHolder(@NonNull VH h, int pos) {
-        ApiModels.LogRow log = data.get(pos);
+        ApiModels.LogRow log = getItem(pos);
 
         h.txtDeviceId.setText(log.esp32_id);
         h.txtLogStatus.setText(log.status.toUpperCase());
-        h.txtLogTime.setText(formatTime(log.timestamp));
+        h.txtLogTime.setText(Timestamps.formatOr(log.timestampMs(), true, log.timestamp));
 
-        boolean isFire = "fire".equalsIgnoreCase(log.status);
-        boolean isOffline = "failed".equalsIgnoreCase(log.status);
+        DeviceStatus state = log.state();
+        boolean isFire = state == DeviceStatus.FIRE;
+        boolean isOffline = state == DeviceStatus.FAILED;
 
         if (isFire) {
             int fireColor = h.itemView.getContext().getColor(R.color.status_fire);
@@ -67,20 +75,6 @@ public class AdminLogsAdapter extends RecyclerView.Adapter<AdminLogsAdapter.VH>
         }
     }
 
-    private String formatTime(String timestamp) {
-        if (timestamp == null || timestamp.isEmpty()) return "Unknown";
-        try {
-            return timestamp.substring(0, Math.min(19, timestamp.length())).replace('T', ' ');
-        } catch (Exception e) {
-            return timestamp;
-        }
-    }
-
-    @Override
-    public int getItemCount() {
-        return data.size();
-    }
-
     static class VH extends RecyclerView.ViewHolder {
         TextView txtDeviceId, txtLogStatus, txtLogTime;
         Chip chipSeverity;
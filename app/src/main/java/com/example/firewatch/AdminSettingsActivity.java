@@ -76,7 +76,7 @@ public class AdminSettingsActivity extends AppCompatActivity {
                     .putString("esp32_id", id)
                     .apply();
 
-            ApiClient.reset();
+            ApiClient.onSettingsChanged(this);
 
             toast("Settings saved successfully");
             finish();
@@ -6,16 +6,17 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.chip.Chip;
 
-import java.util.ArrayList;
 import java.util.List;
 
-public class AdminStatusAdapter extends RecyclerView.Adapter<AdminStatusAdapter.VH> {
+public class AdminStatusAdapter extends ListAdapter<ApiModels.StatusRow, AdminStatusAdapter.VH> {
+
+    private final RowDiff.StableIds ids = new RowDiff.StableIds();
 
-    private final List<ApiModels.StatusRow> data = new ArrayList<>();
     private final OnDeviceClickListener clickListener;
 
     public interface OnDeviceClickListener {
@@ -23,13 +24,19 @@ public class AdminStatusAdapter extends RecyclerView.Adapter<AdminStatusAdapter.
     }
 
     public AdminStatusAdapter(OnDeviceClickListener listener) {
+        super(RowDiff.STATUS);
         this.clickListener = listener;
+        setHasStableIds(true);
     }
 
+    // Diffed against the current list in the background; only changed rows are rebound
     public void setData(List<ApiModels.StatusRow> items) {
-        data.clear();
-        if (items != null) data.addAll(items);
-        notifyDataSetChanged();
+        submitList(items);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return ids.of(getItem(position), position);
     }
 
     @NonNull
@@ -37,12 +44,32 @@ public class AdminStatusAdapter extends RecyclerView.Adapter<AdminStatusAdapter.
     public VH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View v = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_status_admin, parent, false);
-        return new VH(v);
+        VH h = new VH(v);
+        // Set once per holder; partial rebinds don't touch it, so look the row up on click
+        v.setOnClickListener(view -> {
+            int pos = h.getBindingAdapterPosition();
+            if (clickListener != null && pos != RecyclerView.NO_POSITION) {
+                clickListener.onDeviceClick(getItem(pos));
+            }
+        });
+        return h;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull VH h, int pos, @NonNull List<Object> payloads) {
+        int changes = RowDiff.changes(payloads);
+        if (changes == 0) {
+            onBindViewHolder(h, pos);
+            return;
+        }
+        ApiModels.StatusRow row = getItem(pos);
+        if ((changes & RowDiff.CHANGED_TIME) != 0) bindTime(h, row);
+        if ((changes & RowDiff.CHANGED_STATE) != 0) bindState(h, row);
     }
 
     @Override
     public void onBindViewHolder(@NonNull VH h, int pos) {
-        ApiModels.StatusRow row = data.get(pos);
+        ApiModels.StatusRow row = getItem(pos);
 
         h.txtDeviceId.setText(row.esp32_id);
 
@@ -59,8 +86,15 @@ public class AdminStatusAdapter extends RecyclerView.Adapter<AdminStatusAdapter.
         }
         h.txtLocation.setText(locationText);
 
-        h.txtTime.setText("Updated: " + formatTime(row.last_updated));
+        bindTime(h, row);
+        bindState(h, row);
+    }
 
+    private void bindTime(VH h, ApiModels.StatusRow row) {
+        h.txtTime.setText("Updated: " + Timestamps.formatOr(row.lastUpdatedMs(), false, row.last_updated));
+    }
+
+    private void bindState(VH h, ApiModels.StatusRow row) {
         // Check maintenance mode first
         if (!row.isSystemActive()) {
             h.chip.setText("Maintenance");
@@ -74,8 +108,9 @@ public class AdminStatusAdapter extends RecyclerView.Adapter<AdminStatusAdapter.
         } else {
             h.itemView.setAlpha(1.0f);
 
-            boolean isFire = "fire".equalsIgnoreCase(row.last_status);
-            boolean isOffline = "failed".equalsIgnoreCase(row.last_status);
+            DeviceStatus state = row.state();
+            boolean isFire = state == DeviceStatus.FIRE;
+            boolean isOffline = state == DeviceStatus.FAILED;
 
             if (isFire) {
                 h.chip.setText("Fire");
@@ -100,25 +135,6 @@ public class AdminStatusAdapter extends RecyclerView.Adapter<AdminStatusAdapter.
                 );
             }
         }
-
-        h.itemView.setOnClickListener(v -> {
-            if (clickListener != null) {
-                clickListener.onDeviceClick(row);
-            }
-        });
-    }
-    private String formatTime(String timestamp) {
-        if (timestamp == null || timestamp.isEmpty()) return "Unknown";
-        try {
-            return timestamp.substring(0, Math.min(16, timestamp.length())).replace('T', ' ');
-        } catch (Exception e) {
-            return timestamp;
-        }
-    }
-
-    @Override
-    public int getItemCount() {
-        return data.size();
     }
 
     static class VH extends RecyclerView.ViewHolder {
@@ -0,0 +1,191 @@
+package com.example.firewatch;
+
+import com.google.gson.GsonBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * How long fire alerts take to reach the phone, one sample per fire that started.
+ *
+ * Each sample holds four wall-clock times: the row's last_updated (the server's
+ * clock), when the response or push arrived, when the row finished parsing and
+ * when the notification was posted. The last CAPACITY samples are kept in a
+ * ring; histograms are computed from whatever is in it. Thread-safe.
+ */
+public final class AlertLatency {
+
+    static final int CAPACITY = 256;
+
+    // Upper bounds of the histogram buckets; the last bucket takes everything slower
+    static final long[] BUCKET_BOUNDS_MS = {100, 250, 500, 1000, 2500, 5000, 10_000, 30_000, 60_000};
+
+    public enum Stage {
+        SENSOR_TO_RECEIPT("sensor -> receipt"),
+        RECEIPT_TO_PARSED("receipt -> parsed"),
+        PARSED_TO_NOTIFY("parsed -> notify"),
+        SENSOR_TO_NOTIFY("sensor -> notify");
+
+        public final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    public static final class Histogram {
+        public final String stage;
+        /** Samples with both ends of the stage known */
+        public final int count;
+        public final long p50Ms, p95Ms, p99Ms, maxMs;
+        /** Samples per bucket of BUCKET_BOUNDS_MS, plus one for slower ones */
+        public final int[] buckets;
+
+        Histogram(String stage, long[] sorted, int[] buckets) {
+            this.stage = stage;
+            this.count = sorted.length;
+            this.p50Ms = percentile(sorted, 50);
+            this.p95Ms = percentile(sorted, 95);
+            this.p99Ms = percentile(sorted, 99);
+            this.maxMs = sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+            this.buckets = buckets;
+        }
+    }
+
+    public static final class Sample {
+        public final String device;
+        public final long reportedAt, receivedAt, parsedAt, notifiedAt;
+
+        Sample(String device, long reportedAt, long receivedAt, long parsedAt, long notifiedAt) {
+            this.device = device;
+            this.reportedAt = reportedAt;
+            this.receivedAt = receivedAt;
+            this.parsedAt = parsedAt;
+            this.notifiedAt = notifiedAt;
+        }
+    }
+
+    // The ring, one column per timestamp; 0 (or UNKNOWN for reportedAt) means not known
+    private static final String[] devices = new String[CAPACITY];
+    private static final long[] reportedAt = new long[CAPACITY];
+    private static final long[] receivedAt = new long[CAPACITY];
+    private static final long[] parsedAt = new long[CAPACITY];
+    private static final long[] notifiedAt = new long[CAPACITY];
+    private static int next;
+    private static int size;
+    private static long recorded;
+
+    private AlertLatency() {}
+
+    /**
+     * @param notifiedAt when NotificationManager.notify() was called, or 0 if the alert wasn't posted
+     */
+    public static synchronized void record(String device, long reportedAt, long receivedAt,
+                                           long parsedAt, long notifiedAt) {
+        devices[next] = device;
+        AlertLatency.reportedAt[next] = reportedAt;
+        AlertLatency.receivedAt[next] = receivedAt;
+        AlertLatency.parsedAt[next] = parsedAt;
+        AlertLatency.notifiedAt[next] = notifiedAt;
+        next = (next + 1) % CAPACITY;
+        size = Math.min(size + 1, CAPACITY);
+        recorded++;
+    }
+
+    public static synchronized void clear() {
+        Arrays.fill(devices, null);
+        next = 0;
+        size = 0;
+        recorded = 0;
+    }
+
+    /**
+     * Samples recorded since start or clear(), including those the ring has dropped
+     */
+    public static synchronized long recorded() {
+        return recorded;
+    }
+
+    public static synchronized List<Histogram> histograms() {
+        List<Histogram> out = new ArrayList<>();
+        for (Stage stage : Stage.values()) out.add(histogram(stage));
+        return out;
+    }
+
+    /**
+     * Oldest first
+     */
+    public static synchronized List<Sample> samples() {
+        List<Sample> out = new ArrayList<>(size);
+        for (int k = 0; k < size; k++) {
+            int i = (next - size + k + CAPACITY) % CAPACITY;
+            out.add(new Sample(devices[i], reportedAt[i], receivedAt[i], parsedAt[i], notifiedAt[i]));
+        }
+        return out;
+    }
+
+    /**
+     * Histograms and raw samples, for export
+     */
+    public static String toJson() {
+        Report report;
+        synchronized (AlertLatency.class) {
+            report = new Report(System.currentTimeMillis(), recorded, histograms(), samples());
+        }
+        return new GsonBuilder().setPrettyPrinting().create().toJson(report);
+    }
+
+    private static Histogram histogram(Stage stage) {
+        long[] values = new long[size];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            long from, to;
+            switch (stage) {
+                case SENSOR_TO_RECEIPT: from = reported(i); to = receivedAt[i]; break;
+                case RECEIPT_TO_PARSED: from = receivedAt[i]; to = parsedAt[i]; break;
+                case PARSED_TO_NOTIFY: from = parsedAt[i]; to = notifiedAt[i]; break;
+                default: from = reported(i); to = notifiedAt[i]; break;
+            }
+            if (from == 0 || to == 0) continue;
+            // The sensor stages compare the server's clock with ours; skew can make them negative
+            values[n++] = Math.max(0, to - from);
+        }
+        long[] sorted = Arrays.copyOf(values, n);
+        Arrays.sort(sorted);
+
+        int[] buckets = new int[BUCKET_BOUNDS_MS.length + 1];
+        for (long v : sorted) {
+            int b = 0;
+            while (b < BUCKET_BOUNDS_MS.length && v > BUCKET_BOUNDS_MS[b]) b++;
+            buckets[b]++;
+        }
+        return new Histogram(stage.label, sorted, buckets);
+    }
+
+    private static long reported(int i) {
+        return reportedAt[i] == Timestamps.UNKNOWN ? 0 : reportedAt[i];
+    }
+
+    // Nearest rank
+    private static long percentile(long[] sorted, int p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static final class Report {
+        final long generatedAt;
+        final long recorded;
+        final long[] bucketBoundsMs = BUCKET_BOUNDS_MS;
+        final List<Histogram> histograms;
+        final List<Sample> samples;
+
+        Report(long generatedAt, long recorded, List<Histogram> histograms, List<Sample> samples) {
+            this.generatedAt = generatedAt;
+            this.recorded = recorded;
+            this.histograms = histograms;
+            this.samples = samples;
+        }
+    }
+}
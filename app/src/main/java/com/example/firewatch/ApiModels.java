@@ -4,6 +4,9 @@ import com.google.gson.annotations.SerializedName;
 
 public class ApiModels {
 
+    // Marks a derived time field that hasn't been computed yet
+    static final long UNPARSED = Long.MAX_VALUE;
+
     public static class UserRow {
         public String id;
         public String clerk_user_id;
@@ -16,6 +19,13 @@ public class ApiModels {
         public String updated_at;
     }
 
+    /**
+     * Slim projection of users (select=id) for existence checks
+     */
+    public static class UserRef {
+        public String id;
+    }
+
     public static class CreateUserRequest {
         public String clerk_user_id;
         public String email;
@@ -26,6 +36,10 @@ public class ApiModels {
     }
 
     public static class LogRow {
+        // Projections for the select parameter of the log endpoints
+        public static final String COLUMNS_LIST = "id,esp32_id,status,timestamp";
+        public static final String COLUMNS_HISTORY = COLUMNS_LIST + ",location,block";
+
         public long id;
         public String esp32_id;
         public String status;
@@ -33,20 +47,63 @@ public class ApiModels {
         public String location; // Track location at time of log
         public String block;    // Track block at time of log
 
+        // Parsed status; filled in by ModelAdapters, derived on first use otherwise
+        transient DeviceStatus state;
+
+        public DeviceStatus state() {
+            if (state == null) state = DeviceStatus.fromWire(status);
+            return state;
+        }
+
+        // Epoch millis of timestamp; filled in by ModelAdapters, parsed on first use otherwise
+        transient long timestampMillis = UNPARSED;
+
+        /**
+         * timestamp as epoch millis, or Timestamps.UNKNOWN
+         */
+        public long timestampMs() {
+            if (timestampMillis == UNPARSED) timestampMillis = Timestamps.parse(timestamp);
+            return timestampMillis;
+        }
+
+        /**
+         * PostgREST or= filter for rows strictly older than this one in (timestamp, id) order
+         */
+        public static String keysetBefore(LogRow row) {
+            return "(timestamp.lt." + quote(row.timestamp)
+                    + ",and(timestamp.eq." + quote(row.timestamp) + ",id.lt." + row.id + "))";
+        }
+
+        /**
+         * PostgREST or= filter for rows strictly newer than this one in (timestamp, id) order
+         */
+        public static String keysetAfter(LogRow row) {
+            return "(timestamp.gt." + quote(row.timestamp)
+                    + ",and(timestamp.eq." + quote(row.timestamp) + ",id.gt." + row.id + "))";
+        }
+
+        // Timestamps contain '.' and ':' which are reserved inside or=()
+        private static String quote(String value) {
+            return "\"" + value + "\"";
+        }
+
         public boolean isFire() {
-            return "fire".equalsIgnoreCase(status);
+            return state() == DeviceStatus.FIRE;
         }
 
         public boolean isSafe() {
-            return "safe".equalsIgnoreCase(status);
+            return state() == DeviceStatus.SAFE;
         }
 
         public boolean isFailed() {
-            return "failed".equalsIgnoreCase(status);
+            return state() == DeviceStatus.FAILED;
         }
     }
 
     public static class StatusRow {
+        // Columns every status screen reads; used instead of select=*
+        public static final String COLUMNS = "esp32_id,last_status,last_updated,location,block,check";
+
         public String esp32_id;
         public String last_status;
         public String last_updated;
@@ -56,7 +113,34 @@ public class ApiModels {
         @SerializedName("check")
         public Boolean check; // System maintenance control - using existing column
 
+        // Parsed last_status; filled in by ModelAdapters, derived on first use otherwise
+        transient DeviceStatus state;
+
+        public DeviceStatus state() {
+            if (state == null) state = DeviceStatus.fromWire(last_status);
+            return state;
+        }
+
+        // Epoch millis of last_updated; filled in by ModelAdapters, parsed on first use otherwise
+        transient long lastUpdatedMillis = UNPARSED;
+
+        /**
+         * last_updated as epoch millis, or Timestamps.UNKNOWN
+         */
+        public long lastUpdatedMs() {
+            if (lastUpdatedMillis == UNPARSED) lastUpdatedMillis = Timestamps.parse(last_updated);
+            return lastUpdatedMillis;
+        }
+
+        // Wall-clock times this copy of the row arrived and finished parsing, for alert latency; 0 if unknown
+        transient long receivedAtMs;
+        transient long parsedAtMs;
+
         public String getDisplayName() {
+            return displayName(location, block, esp32_id);
+        }
+
+        static String displayName(String location, String block, String esp32Id) {
             if (location != null && !location.isEmpty() && block != null && !block.isEmpty()) {
                 return location + " - " + block;
             } else if (location != null && !location.isEmpty()) {
@@ -64,24 +148,31 @@ public class ApiModels {
             } else if (block != null && !block.isEmpty()) {
                 return block;
             }
-            return esp32_id;
+            return esp32Id;
         }
 
         public boolean isFire() {
-            return "fire".equalsIgnoreCase(last_status);
+            return state() == DeviceStatus.FIRE;
         }
 
         public boolean isSafe() {
-            return "safe".equalsIgnoreCase(last_status);
+            return state() == DeviceStatus.SAFE;
         }
 
         public boolean isFailed() {
-            return "failed".equalsIgnoreCase(last_status);
+            return state() == DeviceStatus.FAILED;
         }
 
         public boolean isSystemActive() {
             return check != null && check;
         }
+
+        /**
+         * state(), or MAINTENANCE while the device is switched off
+         */
+        public DeviceStatus effectiveState() {
+            return isSystemActive() ? state() : DeviceStatus.MAINTENANCE;
+        }
     }
 
     public static class UpdateDeviceLocationRequest {
@@ -1,20 +1,62 @@
 package com.example.firewatch;
 
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-
+/**
+ * Campus topology: buildings, floors, rooms, their drawing cells and adjacency.
+ *
+ * Read from assets/building.json. The file is versioned and streamed with a
+ * JsonReader once per process, on a background thread, the first time load()
+ * is called. Floors are stamped from shared templates, so a campus with many
+ * identical floors costs one cell list and one adjacency table per template
+ * rather than per floor.
+ *
+ * Asset format (version 1). "version" must come first and "templates" before
+ * "buildings":
+ * <pre>
+ * { "version": 1,
+ *   "templates": { "name": {
+ *       "size": [w, h],                         design units for cell coordinates
+ *       "rooms": [[idPattern, type], ...],      index = position, "{f}" = floor number
+ *       "cells": [[kind, position, l, t, r, b], ...],  kind room|lift|stairs|wall, position -1 for none
+ *       "adjacency": [[position, position], ...] } },
+ *   "buildings": [ { "id", "name", "template",
+ *       "floors": [[number, name, optionalTemplate], ...] } ] }   numbered 1..n in order
+ * </pre>
+ */
 public class BuildingConfig {
 
+    private static final String TAG = "BuildingConfig";
+    private static final String ASSET = "building.json";
+
+    // Highest asset format this code understands
+    private static final int FORMAT_VERSION = 1;
+
     public static class Room {
-        public String id;
-        public String name;
-        public int floor;
-        public int position;
-        public boolean isStairs;
-        public String type; // "classroom_end", "classroom_side", "stairs", "classroom_main"
+        public final String id;
+        public final String name;
+        public final int floor;
+        public final int position;
+        public final boolean isStairs;
+        public final String type; // "classroom_end", "classroom_side", "stairs", "classroom_main"
 
         public Room(String id, String name, int floor, int position, boolean isStairs, String type) {
             this.id = id;
@@ -26,161 +68,396 @@ public class BuildingConfig {
         }
     }
 
+    /**
+     * One shape on the floor plan, in the floor's design units.
+     */
+    public static class Cell {
+        public final String kind; // "room", "lift", "stairs" or "wall"
+        public final int position; // room drawn in this cell, or -1
+        public final float left, top, right, bottom;
+
+        Cell(String kind, int position, float left, float top, float right, float bottom) {
+            this.kind = kind;
+            this.position = position;
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+        }
+    }
+
     public static class Floor {
-        public int floorNumber;
-        public String floorName;
-        public List<Room> rooms;
+        public final String buildingId;
+        public final int floorNumber;
+        public final String floorName;
+        public final List<Room> rooms; // index = position
+        public final List<Cell> cells; // drawing order, shared with other floors of the same template
+        public final float width, height;
+        private final int[][] adjacency;
 
-        public Floor(int number, String name) {
+        Floor(String buildingId, int number, String name, Room[] rooms, Template template) {
+            this.buildingId = buildingId;
             this.floorNumber = number;
             this.floorName = name;
-            this.rooms = new ArrayList<>();
+            this.rooms = Collections.unmodifiableList(Arrays.asList(rooms));
+            this.cells = template.cells;
+            this.width = template.width;
+            this.height = template.height;
+            this.adjacency = template.adjacency;
+        }
+
+        public Room room(int position) {
+            return position >= 0 && position < rooms.size() ? rooms.get(position) : null;
+        }
+
+        /**
+         * Positions next to this one. The array is shared, do not modify it.
+         */
+        public int[] neighbours(int position) {
+            return position >= 0 && position < adjacency.length ? adjacency[position] : NO_NEIGHBOURS;
         }
     }
 
-    private static final int TOTAL_FLOORS = 8;
-    private static final int MAIN_ROOMS_PER_FLOOR = 12; // Main classrooms in center
+    public static class Building {
+        public final String id;
+        public final String name;
+        public final List<Floor> floors; // index = floor number - 1
+        // Room ids are unique within a building only; other buildings may reuse them
+        private final Map<String, Room> roomsById;
+
+        Building(String id, String name, List<Floor> floors) throws IOException {
+            this.id = id;
+            this.name = name;
+            this.floors = Collections.unmodifiableList(floors);
+
+            Map<String, Room> byId = new HashMap<>();
+            for (Floor floor : floors) {
+                for (Room room : floor.rooms) {
+                    if (byId.put(room.id, room) != null) {
+                        throw new IOException("Duplicate room id " + room.id + " in building " + id);
+                    }
+                }
+            }
+            this.roomsById = Collections.unmodifiableMap(byId);
+        }
+
+        /**
+         * Room with this id in this building, or null
+         */
+        public Room room(String roomId) {
+            return roomId == null ? null : roomsById.get(roomId);
+        }
+
+        public Map<String, Room> rooms() {
+            return roomsById;
+        }
+    }
+
+    public interface LoadListener {
+        void onLoaded(List<Floor> floors);
+    }
+
+    private static final int[] NO_NEIGHBOURS = new int[0];
+
+    private static final ExecutorService loader = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static final List<LoadListener> pending = new ArrayList<>();
+    private static boolean loading;
+
+    // Published once by the loader; immutable afterwards
+    private static volatile List<Building> buildings;
 
     /**
-     * Generates building with new layout:
-     * Position 0: End Classroom (Left)
-     * Position 1: Side Classroom (Left)
-     * Position 2: Stairs (Left)
-     * Position 3-14: Main Classrooms (12 rooms)
-     * Position 15: Stairs (Right)
-     * Position 16: Side Classroom (Right)
-     * Position 17: End Classroom (Right)
+     * Deliver the floors of the main building, parsing the asset first if needed.
+     * Synchronous once loaded, otherwise called back on the main thread.
      */
-    public static List<Floor> generateBuilding() {
-        List<Floor> building = new ArrayList<>();
-        String[] floorNames = {"Ground", "First", "Second", "Third", "Fourth", "Fifth", "Sixth", "Seventh"};
-
-        for (int f = 0; f < TOTAL_FLOORS; f++) {
-            int floorNum = f + 1;
-            Floor floor = new Floor(floorNum, floorNames[f]);
-
-            // Position 0: Left End Classroom
-            String leftEndId = String.format("%dE1", floorNum);
-            floor.rooms.add(new Room(
-                    leftEndId,
-                    "Classroom " + leftEndId,
-                    floorNum,
-                    0,
-                    false,
-                    "classroom_end"
-            ));
-
-            // Position 1: Left Side Classroom
-            String leftSideId = String.format("%dS1", floorNum);
-            floor.rooms.add(new Room(
-                    leftSideId,
-                    "Classroom " + leftSideId,
-                    floorNum,
-                    1,
-                    false,
-                    "classroom_side"
-            ));
-
-            // Position 2: Left Stairs
-            floor.rooms.add(new Room(
-                    "STAIRS_L_" + floorNum,
-                    "Stairs",
-                    floorNum,
-                    2,
-                    true,
-                    "stairs"
-            ));
-
-            // Position 3-14: Main Classrooms (12 rooms)
-            for (int r = 1; r <= MAIN_ROOMS_PER_FLOOR; r++) {
-                String roomId = String.format("%d%02d", floorNum, r);
-                String roomName = "Classroom " + roomId;
-                floor.rooms.add(new Room(
-                        roomId,
-                        roomName,
-                        floorNum,
-                        2 + r,
-                        false,
-                        "classroom_main"
-                ));
+    public static void load(Context ctx, LoadListener listener) {
+        synchronized (BuildingConfig.class) {
+            if (buildings == null) {
+                pending.add(listener);
+                if (!loading) {
+                    loading = true;
+                    Context app = ctx.getApplicationContext();
+                    loader.execute(() -> loadAsset(app));
+                }
+                return;
             }
+        }
+        listener.onLoaded(getBuilding());
+    }
+
+    private static void loadAsset(Context app) {
+        List<Building> parsed;
+        try (JsonReader in = new JsonReader(new InputStreamReader(
+                new BufferedInputStream(app.getAssets().open(ASSET)), StandardCharsets.UTF_8))) {
+            parsed = parse(in);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Failed to load " + ASSET, e);
+            parsed = Collections.emptyList();
+        }
 
-            // Position 15: Right Stairs
-            floor.rooms.add(new Room(
-                    "STAIRS_R_" + floorNum,
-                    "Stairs",
-                    floorNum,
-                    15,
-                    true,
-                    "stairs"
-            ));
-
-            // Position 16: Right Side Classroom
-            String rightSideId = String.format("%dS2", floorNum);
-            floor.rooms.add(new Room(
-                    rightSideId,
-                    "Classroom " + rightSideId,
-                    floorNum,
-                    16,
-                    false,
-                    "classroom_side"
-            ));
-
-            // Position 17: Right End Classroom
-            String rightEndId = String.format("%dE2", floorNum);
-            floor.rooms.add(new Room(
-                    rightEndId,
-                    "Classroom " + rightEndId,
-                    floorNum,
-                    17,
-                    false,
-                    "classroom_end"
-            ));
-
-            building.add(floor);
-        }
-
-        return building;
+        List<LoadListener> listeners;
+        synchronized (BuildingConfig.class) {
+            buildings = parsed;
+            loading = false;
+            listeners = new ArrayList<>(pending);
+            pending.clear();
+        }
+        Log.d(TAG, "Loaded " + parsed.size() + " buildings");
+
+        List<Floor> floors = getBuilding();
+        mainHandler.post(() -> {
+            for (LoadListener l : listeners) l.onLoaded(floors);
+        });
+    }
+
+    /**
+     * Floors of the main (first) building, floor 1 first. Empty until load() has finished.
+     */
+    public static List<Floor> getBuilding() {
+        Building main = mainBuilding();
+        return main != null ? main.floors : Collections.emptyList();
+    }
+
+    private static Building mainBuilding() {
+        List<Building> all = buildings;
+        return all == null || all.isEmpty() ? null : all.get(0);
+    }
+
+    /**
+     * Every building on the campus. Empty until load() has finished.
+     */
+    public static List<Building> getBuildings() {
+        List<Building> all = buildings;
+        return all != null ? all : Collections.emptyList();
     }
 
     /**
-     * Get a map of all rooms by ID for quick lookup
+     * Rooms of the main building by id. Empty until load() has finished.
      */
     public static Map<String, Room> getRoomMap() {
-        Map<String, Room> map = new HashMap<>();
-        List<Floor> building = generateBuilding();
+        Building main = mainBuilding();
+        return main != null ? main.rooms() : Collections.emptyMap();
+    }
 
-        for (Floor floor : building) {
-            for (Room room : floor.rooms) {
-                map.put(room.id, room);
-            }
+    /**
+     * Room with this id in the main building, or null
+     */
+    public static Room getRoom(String roomId) {
+        Building main = mainBuilding();
+        return main != null ? main.room(roomId) : null;
+    }
+
+    /**
+     * Room with this id in the given building, or null
+     */
+    public static Room getRoom(String buildingId, String roomId) {
+        for (Building building : getBuildings()) {
+            if (building.id != null && building.id.equals(buildingId)) return building.room(roomId);
         }
+        return null;
+    }
 
-        return map;
+    /**
+     * Room at a layout position on a floor of the main building, or null
+     */
+    public static Room getRoom(int floorNumber, int position) {
+        Floor floor = getFloor(floorNumber);
+        return floor != null ? floor.room(position) : null;
     }
 
     /**
-     * Get a specific floor by number
+     * Get a specific floor of the main building by number
      */
     public static Floor getFloor(int floorNumber) {
-        List<Floor> building = generateBuilding();
+        List<Floor> building = getBuilding();
         if (floorNumber > 0 && floorNumber <= building.size()) {
             return building.get(floorNumber - 1);
         }
         return null;
     }
 
-    /**
-     * Get total number of rooms per floor
-     */
-    public static int getRoomsPerFloor() {
-        return 18; // 14 classrooms + 2 stairs + 2 end classrooms
-    }
-
     /**
      * Check if a room ID represents stairs
      */
     public static boolean isStairsRoom(String roomId) {
         return roomId != null && roomId.startsWith("STAIRS_");
     }
-}
\ No newline at end of file
+
+    // parsing
+
+    private static class Template {
+        float width = 1000;
+        float height = 500;
+        final List<String[]> rooms = new ArrayList<>(); // {id pattern, type}
+        List<Cell> cells = Collections.emptyList();
+        int[][] adjacency = new int[0][];
+    }
+
+    static List<Building> parse(JsonReader in) throws IOException {
+        Map<String, Template> templates = new HashMap<>();
+        List<Building> result = new ArrayList<>();
+        int version = -1;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "version":
+                    version = in.nextInt();
+                    if (version > FORMAT_VERSION) {
+                        throw new IOException("Unsupported building format " + version);
+                    }
+                    break;
+                case "templates":
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        String name = in.nextName();
+                        templates.put(name, readTemplate(in));
+                    }
+                    in.endObject();
+                    break;
+                case "buildings":
+                    if (version < 0) throw new IOException("\"version\" must come before \"buildings\"");
+                    in.beginArray();
+                    while (in.hasNext()) result.add(readBuilding(in, templates));
+                    in.endArray();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return Collections.unmodifiableList(result);
+    }
+
+    private static Template readTemplate(JsonReader in) throws IOException {
+        Template t = new Template();
+        List<Cell> cells = new ArrayList<>();
+        List<int[]> edges = new ArrayList<>();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "size":
+                    in.beginArray();
+                    t.width = (float) in.nextDouble();
+                    t.height = (float) in.nextDouble();
+                    in.endArray();
+                    break;
+                case "rooms":
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        in.beginArray();
+                        t.rooms.add(new String[]{in.nextString(), in.nextString()});
+                        in.endArray();
+                    }
+                    in.endArray();
+                    break;
+                case "cells":
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        in.beginArray();
+                        cells.add(new Cell(in.nextString(), in.nextInt(),
+                                (float) in.nextDouble(), (float) in.nextDouble(),
+                                (float) in.nextDouble(), (float) in.nextDouble()));
+                        in.endArray();
+                    }
+                    in.endArray();
+                    break;
+                case "adjacency":
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        in.beginArray();
+                        edges.add(new int[]{in.nextInt(), in.nextInt()});
+                        in.endArray();
+                    }
+                    in.endArray();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        int roomCount = t.rooms.size();
+        for (Cell cell : cells) {
+            if (cell.position >= roomCount) throw new IOException("Cell refers to missing position " + cell.position);
+        }
+        t.cells = Collections.unmodifiableList(cells);
+        t.adjacency = adjacency(edges, roomCount);
+        return t;
+    }
+
+    // Undirected edge list to per-position neighbour arrays
+    private static int[][] adjacency(List<int[]> edges, int roomCount) throws IOException {
+        int[] degree = new int[roomCount];
+        for (int[] e : edges) {
+            if (e[0] < 0 || e[0] >= roomCount || e[1] < 0 || e[1] >= roomCount) {
+                throw new IOException("Adjacency refers to missing position");
+            }
+            degree[e[0]]++;
+            degree[e[1]]++;
+        }
+        int[][] result = new int[roomCount][];
+        for (int i = 0; i < roomCount; i++) {
+            result[i] = degree[i] == 0 ? NO_NEIGHBOURS : new int[degree[i]];
+            degree[i] = 0;
+        }
+        for (int[] e : edges) {
+            result[e[0]][degree[e[0]]++] = e[1];
+            result[e[1]][degree[e[1]]++] = e[0];
+        }
+        return result;
+    }
+
+    private static Building readBuilding(JsonReader in, Map<String, Template> templates) throws IOException {
+        String id = null;
+        String name = null;
+        String defaultTemplate = null;
+        List<Floor> floors = new ArrayList<>();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id": id = in.nextString(); break;
+                case "name": name = in.nextString(); break;
+                case "template": defaultTemplate = in.nextString(); break;
+                case "floors":
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        in.beginArray();
+                        int number = in.nextInt();
+                        String floorName = in.nextString();
+                        String templateName = in.hasNext() ? in.nextString() : defaultTemplate;
+                        in.endArray();
+
+                        if (number != floors.size() + 1) {
+                            throw new IOException("Floors of " + id + " must be numbered 1..n in order");
+                        }
+                        Template template = templates.get(templateName);
+                        if (template == null) throw new IOException("Unknown template " + templateName);
+                        floors.add(new Floor(id, number, floorName, stampRooms(template, number), template));
+                    }
+                    in.endArray();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return new Building(id, name, floors);
+    }
+
+    private static Room[] stampRooms(Template template, int floorNumber) {
+        String floor = String.valueOf(floorNumber);
+        Room[] rooms = new Room[template.rooms.size()];
+        for (int position = 0; position < rooms.length; position++) {
+            String[] spec = template.rooms.get(position);
+            String id = spec[0].replace("{f}", floor);
+            boolean stairs = "stairs".equals(spec[1]);
+            rooms[position] = new Room(id, stairs ? "Stairs" : "Classroom " + id,
+                    floorNumber, position, stairs, spec[1]);
+        }
+        return rooms;
+    }
+}
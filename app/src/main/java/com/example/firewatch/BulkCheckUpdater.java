@@ -0,0 +1,36 @@
+package com.example.firewatch;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Sets the maintenance flag (check column) on every device at once.
+ *
+ * updateAll() is a single match-all PATCH, so the database flips every row in
+ * one statement and the building is never left half in maintenance.
+ */
+public class BulkCheckUpdater {
+
+    public interface Listener {
+        void onComplete(boolean succeeded);
+    }
+
+    public static void updateAll(SupabaseApi api, boolean active, Listener listener) {
+        ApiModels.UpdateSystemCheckRequest request = new ApiModels.UpdateSystemCheckRequest();
+        request.check = active;
+
+        // PostgREST refuses a PATCH without any filter
+        api.updateDeviceCheck("not.is.null", request).enqueue(new Callback<Void>() {
+            @Override
+            public void onResponse(Call<Void> call, Response<Void> response) {
+                listener.onComplete(response.isSuccessful());
+            }
+
+            @Override
+            public void onFailure(Call<Void> call, Throwable t) {
+                listener.onComplete(false);
+            }
+        });
+    }
+}
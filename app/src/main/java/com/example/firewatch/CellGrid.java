@@ -0,0 +1,100 @@
+package com.example.firewatch;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Uniform grid over the cells of a floor template, in design coordinates.
+ *
+ * Each bucket lists the cells whose bounds overlap it, packed into one int
+ * array (bucket b owns items[start[b]] to items[start[b + 1] - 1]). Built once
+ * per template; queries allocate nothing.
+ */
+final class CellGrid {
+
+    // Aim for a handful of cells per bucket
+    private static final int CELLS_PER_BUCKET = 4;
+
+    private final List<BuildingConfig.Cell> cells;
+    private final int cols, rows;
+    private final float bucketWidth, bucketHeight;
+    private final int[] start;
+    private final int[] items;
+
+    CellGrid(List<BuildingConfig.Cell> cells, float width, float height) {
+        this.cells = cells;
+        int side = Math.max(1, (int) Math.ceil(Math.sqrt(cells.size() / (double) CELLS_PER_BUCKET)));
+        cols = side;
+        rows = side;
+        bucketWidth = Math.max(width, 1f) / cols;
+        bucketHeight = Math.max(height, 1f) / rows;
+
+        // Count, then fill; the same bucket ranges are walked twice
+        start = new int[cols * rows + 1];
+        for (BuildingConfig.Cell cell : cells) {
+            for (int r = row(minY(cell)); r <= row(maxY(cell)); r++) {
+                for (int c = col(minX(cell)); c <= col(maxX(cell)); c++) {
+                    start[r * cols + c + 1]++;
+                }
+            }
+        }
+        for (int b = 0; b < cols * rows; b++) start[b + 1] += start[b];
+
+        items = new int[start[cols * rows]];
+        int[] fill = new int[cols * rows];
+        for (int i = 0; i < cells.size(); i++) {
+            BuildingConfig.Cell cell = cells.get(i);
+            for (int r = row(minY(cell)); r <= row(maxY(cell)); r++) {
+                for (int c = col(minX(cell)); c <= col(maxX(cell)); c++) {
+                    int b = r * cols + c;
+                    items[start[b] + fill[b]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the index of every cell that may overlap the rectangle. Iterating
+     * the result in bit order keeps the template's drawing order.
+     */
+    void query(float left, float top, float right, float bottom, BitSet out) {
+        for (int r = row(top); r <= row(bottom); r++) {
+            for (int c = col(left); c <= col(right); c++) {
+                int b = r * cols + c;
+                for (int k = start[b]; k < start[b + 1]; k++) out.set(items[k]);
+            }
+        }
+    }
+
+    /**
+     * Index of the topmost room, lift or stairs cell containing the point, or -1
+     */
+    int hit(float x, float y) {
+        if (x < 0 || y < 0 || x > cols * bucketWidth || y > rows * bucketHeight) return -1;
+        int b = row(y) * cols + col(x);
+        int found = -1;
+        for (int k = start[b]; k < start[b + 1]; k++) {
+            int i = items[k];
+            BuildingConfig.Cell cell = cells.get(i);
+            if ("wall".equals(cell.kind)) continue;
+            if (x >= cell.left && x <= cell.right && y >= cell.top && y <= cell.bottom && i > found) {
+                found = i;
+            }
+        }
+        return found;
+    }
+
+    private int col(float x) {
+        return Math.min(cols - 1, Math.max(0, (int) (x / bucketWidth)));
+    }
+
+    private int row(float y) {
+        return Math.min(rows - 1, Math.max(0, (int) (y / bucketHeight)));
+    }
+
+    // Wall cells are lines, so their corners may come in either order
+    private static float minX(BuildingConfig.Cell c) { return Math.min(c.left, c.right); }
+    private static float maxX(BuildingConfig.Cell c) { return Math.max(c.left, c.right); }
+    private static float minY(BuildingConfig.Cell c) { return Math.min(c.top, c.bottom); }
+    private static float maxY(BuildingConfig.Cell c) { return Math.max(c.top, c.bottom); }
+}
@@ -0,0 +1,200 @@
+package com.example.firewatch;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Everything a dashboard shows for one status snapshot.
+ *
+ * Built on a background thread by a Producer and handed to the main thread,
+ * which only applies it. Immutable once published.
+ */
+public final class DashboardState {
+
+    private static final String TAG = "DashboardState";
+
+    // One thread for every dashboard; each Producer's snapshots are processed in order
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /** Rows for the device list, one per dashboard key, newest first */
+    public final List<ApiModels.StatusRow> devices;
+    /** Names of active devices reporting fire, in the order the fires started */
+    public final List<String> fires;
+    /** Names of devices reporting failed; includes devices in maintenance */
+    public final List<String> offline;
+    public final boolean maintenance;
+    /** Newest last_updated, formatted, or "--" */
+    public final String newestTime;
+    /** Room of a fire that became visible with this snapshot, to bring into view; usually null */
+    @Nullable public final BuildingConfig.Room newFireRoom;
+    /** Burning room positions per floor; never modified after publication */
+    public final LocationIndex.FireSets fireSets;
+
+    private DashboardState(List<ApiModels.StatusRow> devices, List<String> fires, List<String> offline,
+                           boolean maintenance, String newestTime,
+                           @Nullable BuildingConfig.Room newFireRoom, LocationIndex.FireSets fireSets) {
+        this.devices = Collections.unmodifiableList(devices);
+        this.fires = Collections.unmodifiableList(fires);
+        this.offline = Collections.unmodifiableList(offline);
+        this.maintenance = maintenance;
+        this.newestTime = newestTime;
+        this.newFireRoom = newFireRoom;
+        this.fireSets = fireSets;
+    }
+
+    public boolean hasActiveFire() {
+        return !fires.isEmpty();
+    }
+
+    public interface Listener {
+        void onState(DashboardState state);
+    }
+
+    /**
+     * Turns snapshots into states for one dashboard. submit() and close() are
+     * called on the main thread; the listener is called there too.
+     */
+    public static class Producer {
+        private final boolean perLocation;
+        private final Listener listener;
+        private volatile boolean closed;
+        // Main thread; the service's update and a dashboard's own fetch often hand over the same list
+        private List<ApiModels.StatusRow> lastSubmitted;
+
+        // Only touched on the worker thread
+        private final StatusDiff diff = new StatusDiff();
+        private List<ApiModels.StatusRow> lastRows = Collections.emptyList();
+        private Set<String> lastFires = Collections.emptySet();
+        private LocationIndex.FireSets fireSets = new LocationIndex.FireSets();
+        private List<BuildingConfig.Floor> indexedFor;
+
+        /**
+         * @param perLocation one list entry per location (user dashboard) rather than per device
+         */
+        public Producer(boolean perLocation, Listener listener) {
+            this.perLocation = perLocation;
+            this.listener = listener;
+        }
+
+        /**
+         * Queues a snapshot; the list must not be modified afterwards
+         */
+        public void submit(List<ApiModels.StatusRow> rows) {
+            if (closed || rows == lastSubmitted) return;
+            lastSubmitted = rows;
+            worker.execute(() -> publish(compute(rows)));
+        }
+
+        /**
+         * Recomputes from the last snapshot, e.g. once the floor plan has loaded
+         */
+        public void refresh() {
+            if (closed) return;
+            worker.execute(() -> publish(compute(lastRows)));
+        }
+
+        public void close() {
+            closed = true;
+        }
+
+        private void publish(DashboardState state) {
+            mainHandler.post(() -> {
+                if (!closed) listener.onState(state);
+            });
+        }
+
+        private String keyOf(ApiModels.StatusRow row) {
+            return perLocation ? row.location : row.esp32_id;
+        }
+
+        private String nameOf(ApiModels.StatusRow row) {
+            if (perLocation) return row.location;
+            return row.location != null && !row.location.isEmpty() ? row.location : row.esp32_id;
+        }
+
+        // The device's row if it is the one the list shows for its key, else null
+        @Nullable
+        private ApiModels.StatusRow shownRow(LinkedHashMap<String, ApiModels.StatusRow> latest, int slot) {
+            ApiModels.StatusRow row = latest.get(perLocation ? diff.location(slot) : diff.id(slot));
+            return row != null && diff.id(slot).equals(row.esp32_id) ? row : null;
+        }
+
+        private DashboardState compute(List<ApiModels.StatusRow> rows) {
+            lastRows = rows;
+
+            LinkedHashMap<String, ApiModels.StatusRow> latest = new LinkedHashMap<>();
+            long newest = Timestamps.UNKNOWN;
+            for (ApiModels.StatusRow row : rows) {
+                if (latest.containsKey(keyOf(row))) continue;
+                latest.put(keyOf(row), row);
+                newest = Math.max(newest, row.lastUpdatedMs());
+            }
+
+            // Folds the snapshot into the diff, which keeps the fire and offline sets
+            for (StatusDiff.Transition t : diff.update(rows)) {
+                Log.d(TAG, "Transition: " + t);
+            }
+
+            // Only rows the list shows count: per location, an older device at the same
+            // location still reporting fire is superseded by the newest one
+            LinkedHashSet<String> fireNames = new LinkedHashSet<>();
+            for (int slot = diff.firstFire(); slot != DeviceRegistry.NO_SLOT; slot = diff.nextFire(slot)) {
+                ApiModels.StatusRow row = shownRow(latest, slot);
+                // Fires reported while switched off are not alarms
+                if (row != null && row.isSystemActive()) fireNames.add(nameOf(row));
+            }
+            LinkedHashSet<String> offlineNames = new LinkedHashSet<>();
+            for (int slot = diff.firstOffline(); slot != DeviceRegistry.NO_SLOT; slot = diff.nextOffline(slot)) {
+                ApiModels.StatusRow row = shownRow(latest, slot);
+                if (row != null) offlineNames.add(nameOf(row));
+            }
+            List<String> fires = new ArrayList<>(fireNames);
+            List<String> offline = new ArrayList<>(offlineNames);
+
+            // Compared by name rather than from transitions: a location also starts or stops
+            // burning when a newer device's row takes over from the one shown before
+            BuildingConfig.Room newFireRoom = null;
+            for (String name : fires) {
+                if (!lastFires.contains(name)) {
+                    newFireRoom = LocationIndex.resolve(name);
+                    break;
+                }
+            }
+            boolean firesChanged = !fireNames.equals(lastFires);
+            lastFires = fireNames;
+
+            // Rebuilt rather than cleared: the previous set may still be on screen
+            List<BuildingConfig.Floor> building = BuildingConfig.getBuilding();
+            if (firesChanged || building != indexedFor) {
+                LocationIndex.FireSets sets = new LocationIndex.FireSets();
+                for (String name : fires) {
+                    BuildingConfig.Room room = LocationIndex.resolve(name);
+                    if (room != null) sets.add(room);
+                }
+                // Fires that came in before the floor plan loaded couldn't be placed until now
+                if (newFireRoom == null && indexedFor != null && building != indexedFor && !fires.isEmpty()) {
+                    newFireRoom = LocationIndex.resolve(fires.get(0));
+                }
+                fireSets = sets;
+                indexedFor = building;
+            }
+
+            String newestTime = newest == Timestamps.UNKNOWN ? "--" : Timestamps.format(newest, true);
+            return new DashboardState(new ArrayList<>(latest.values()), fires, offline,
+                    diff.maintenanceCount() > 0, newestTime, newFireRoom, fireSets);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import android.os.Bundle;
 import android.view.View;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -13,9 +14,8 @@ import com.google.android.material.button.MaterialButton;
 import com.google.android.material.progressindicator.LinearProgressIndicator;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -31,6 +31,18 @@ public class DeviceLogsActivity extends AppCompatActivity {
     private String location;
     private String block;
 
+    private static final int PAGE_SIZE = 50;
+    // Rows kept in memory at once; older or newer rows are re-fetched by keyset when scrolled to
+    private static final int MAX_WINDOW = 300;
+    private static final int PREFETCH_DISTANCE = 10;
+
+    private boolean loading;
+    private boolean hasOlder = true;
+    private boolean hasNewer;
+    private int generation;
+    // Adapter holds rows from LocalStore until the first network page replaces them
+    private boolean showingCache;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -63,6 +75,7 @@ public class DeviceLogsActivity extends AppCompatActivity {
         recyclerLogs.setLayoutManager(new LinearLayoutManager(this));
         logsAdapter = new DeviceLogsAdapter(location, block);
         recyclerLogs.setAdapter(logsAdapter);
+        setupPaging();
 
         btnRefresh.setOnClickListener(v -> loadLogs());
 
@@ -76,28 +89,124 @@ public class DeviceLogsActivity extends AppCompatActivity {
             return;
         }
 
+        // Start again from the newest page; a response still in flight is ignored
+        generation++;
+        loading = false;
+        hasOlder = true;
+        hasNewer = false;
+        showingCache = false;
+        logsAdapter.setData(new ArrayList<>());
+        loadCachedLogs();
+        loadOlder();
+    }
+
+    /**
+     * Show the stored history while the first page is on its way, or if it never arrives.
+     */
+    private void loadCachedLogs() {
+        final int requestGeneration = generation;
+        LocalStore store = LocalStore.get(this);
+        store.execute(() -> {
+            List<ApiModels.LogRow> rows = store.loadLogs(deviceId, PAGE_SIZE);
+            runOnUiThread(() -> {
+                if (requestGeneration != generation || rows.isEmpty()
+                        || logsAdapter.getItemCount() > 0) return;
+                logsAdapter.setData(rows);
+                showingCache = true;
+            });
+        });
+    }
+
+    private void setupPaging() {
+        recyclerLogs.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                LinearLayoutManager lm = (LinearLayoutManager) rv.getLayoutManager();
+                if (lm == null || loading) return;
+
+                if (dy > 0 && hasOlder
+                        && lm.findLastVisibleItemPosition() >= logsAdapter.getItemCount() - PREFETCH_DISTANCE) {
+                    loadOlder();
+                } else if (dy < 0 && hasNewer
+                        && lm.findFirstVisibleItemPosition() <= PREFETCH_DISTANCE) {
+                    loadNewer();
+                }
+            }
+        });
+    }
+
+    private void loadOlder() {
+        ApiModels.LogRow last = showingCache ? null : logsAdapter.last();
+        String keyset = last != null ? ApiModels.LogRow.keysetBefore(last) : null;
+        boolean firstPage = last == null;
+
+        loadPage(ApiClient.api(this).getLogsByDevice(
+                ApiModels.LogRow.COLUMNS_HISTORY, "eq." + deviceId, keyset, PAGE_SIZE), rows -> {
+            hasOlder = rows.size() == PAGE_SIZE;
+            if (firstPage) {
+                // Newest page replaces any cached rows and becomes the new cached copy
+                showingCache = false;
+                logsAdapter.setData(rows);
+                LocalStore store = LocalStore.get(DeviceLogsActivity.this);
+                List<ApiModels.LogRow> copy = new ArrayList<>(rows);
+                store.execute(() -> store.saveLogs(deviceId, copy));
+            } else {
+                logsAdapter.appendOlder(rows);
+            }
+
+            // Keep a bounded window: forget the newest rows, they can be paged back in
+            int excess = logsAdapter.getItemCount() - MAX_WINDOW;
+            if (excess > 0) {
+                logsAdapter.dropFromStart(excess);
+                hasNewer = true;
+            }
+
+            if (firstPage && rows.isEmpty()) {
+                Toast.makeText(DeviceLogsActivity.this,
+                        "No logs found for this device", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void loadNewer() {
+        ApiModels.LogRow first = logsAdapter.first();
+        if (first == null) return;
+
+        loadPage(ApiClient.api(this).getNewerLogsByDevice(
+                ApiModels.LogRow.COLUMNS_HISTORY, "eq." + deviceId,
+                ApiModels.LogRow.keysetAfter(first), PAGE_SIZE), rows -> {
+            hasNewer = rows.size() == PAGE_SIZE;
+            // Server sent them oldest first
+            Collections.reverse(rows);
+            logsAdapter.prependNewer(rows);
+
+            int excess = logsAdapter.getItemCount() - MAX_WINDOW;
+            if (excess > 0) {
+                logsAdapter.dropFromEnd(excess);
+                hasOlder = true;
+            }
+        });
+    }
+
+    private interface PageHandler {
+        void onPage(List<ApiModels.LogRow> rows);
+    }
+
+    private void loadPage(Call<List<ApiModels.LogRow>> call, PageHandler handler) {
+        loading = true;
         progressBar.setVisibility(View.VISIBLE);
-        SupabaseApi api = ApiClient.api(this);
+        final int requestGeneration = generation;
 
-        api.getLogs().enqueue(new Callback<List<ApiModels.LogRow>>() {
+        // Network and JSON parsing run on OkHttp's threads; only the append happens here
+        call.enqueue(new Callback<List<ApiModels.LogRow>>() {
             @Override
             public void onResponse(Call<List<ApiModels.LogRow>> call, Response<List<ApiModels.LogRow>> response) {
+                if (requestGeneration != generation) return;
+                loading = false;
                 progressBar.setVisibility(View.GONE);
 
                 if (response.isSuccessful() && response.body() != null) {
-                    List<ApiModels.LogRow> deviceLogs = new ArrayList<>();
-                    for (ApiModels.LogRow log : response.body()) {
-                        if (deviceId.equals(log.esp32_id)) {
-                            deviceLogs.add(log);
-                        }
-                    }
-
-                    if (deviceLogs.isEmpty()) {
-                        Toast.makeText(DeviceLogsActivity.this,
-                                "No logs found for this device", Toast.LENGTH_SHORT).show();
-                    }
-
-                    logsAdapter.setData(deviceLogs);
+                    handler.onPage(new ArrayList<>(response.body()));
                 } else {
                     Toast.makeText(DeviceLogsActivity.this,
                             "Failed to load logs", Toast.LENGTH_SHORT).show();
@@ -106,6 +215,8 @@ public class DeviceLogsActivity extends AppCompatActivity {
 
             @Override
             public void onFailure(Call<List<ApiModels.LogRow>> call, Throwable t) {
+                if (requestGeneration != generation) return;
+                loading = false;
                 progressBar.setVisibility(View.GONE);
                 Toast.makeText(DeviceLogsActivity.this,
                         "Error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
@@ -6,6 +6,7 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.chip.Chip;
@@ -22,12 +23,74 @@ public class DeviceLogsAdapter extends RecyclerView.Adapter<DeviceLogsAdapter.VH
     public DeviceLogsAdapter(String currentLocation, String currentBlock) {
         this.currentLocation = currentLocation;
         this.currentBlock = currentBlock;
+        setHasStableIds(true);
     }
 
+    // Diffed on the calling thread: the paging calls below edit the list in place and
+    // first()/last() must see the result at once. The window is capped at a few hundred rows.
     public void setData(List<ApiModels.LogRow> items) {
+        List<ApiModels.LogRow> next = items != null ? items : new ArrayList<>();
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return data.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return next.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPos, int newPos) {
+                return RowDiff.LOGS.areItemsTheSame(data.get(oldPos), next.get(newPos));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPos, int newPos) {
+                return RowDiff.LOGS.areContentsTheSame(data.get(oldPos), next.get(newPos));
+            }
+        });
         data.clear();
-        if (items != null) data.addAll(items);
-        notifyDataSetChanged();
+        data.addAll(next);
+        result.dispatchUpdatesTo(this);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return data.get(position).id;
+    }
+
+    // Paging window: older pages go on the end, newer pages on the front
+
+    public void appendOlder(List<ApiModels.LogRow> items) {
+        int start = data.size();
+        data.addAll(items);
+        notifyItemRangeInserted(start, items.size());
+    }
+
+    public void prependNewer(List<ApiModels.LogRow> items) {
+        data.addAll(0, items);
+        notifyItemRangeInserted(0, items.size());
+    }
+
+    public void dropFromStart(int count) {
+        data.subList(0, count).clear();
+        notifyItemRangeRemoved(0, count);
+    }
+
+    public void dropFromEnd(int count) {
+        int start = data.size() - count;
+        data.subList(start, data.size()).clear();
+        notifyItemRangeRemoved(start, count);
+    }
+
+    public ApiModels.LogRow first() {
+        return data.isEmpty() ? null : data.get(0);
+    }
+
+    public ApiModels.LogRow last() {
+        return data.isEmpty() ? null : data.get(data.size() - 1);
     }
 
     @NonNull
@@ -44,7 +107,7 @@ public class DeviceLogsAdapter extends RecyclerView.Adapter<DeviceLogsAdapter.VH
 
         h.txtDeviceId.setText(log.esp32_id);
         h.txtLogStatus.setText(log.status.toUpperCase());
-        h.txtLogTime.setText(formatTime(log.timestamp));
+        h.txtLogTime.setText(Timestamps.formatOr(log.timestampMs(), true, log.timestamp));
 
         // Check if location has changed
         boolean locationChanged = false;
@@ -86,8 +149,9 @@ public class DeviceLogsAdapter extends RecyclerView.Adapter<DeviceLogsAdapter.VH
         } else {
             h.itemView.setAlpha(1.0f);
 
-            boolean isFire = "fire".equalsIgnoreCase(log.status);
-            boolean isOffline = "failed".equalsIgnoreCase(log.status);
+            DeviceStatus state = log.state();
+            boolean isFire = state == DeviceStatus.FIRE;
+            boolean isOffline = state == DeviceStatus.FAILED;
 
             if (isFire) {
                 int fireColor = h.itemView.getContext().getColor(R.color.status_fire);
@@ -121,15 +185,6 @@ public class DeviceLogsAdapter extends RecyclerView.Adapter<DeviceLogsAdapter.VH
         }
     }
 
-    private String formatTime(String timestamp) {
-        if (timestamp == null || timestamp.isEmpty()) return "Unknown";
-        try {
-            return timestamp.substring(0, Math.min(19, timestamp.length())).replace('T', ' ');
-        } catch (Exception e) {
-            return timestamp;
-        }
-    }
-
     @Override
     public int getItemCount() {
         return data.size();
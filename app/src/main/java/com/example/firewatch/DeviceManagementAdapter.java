@@ -6,16 +6,17 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.button.MaterialButton;
 
-import java.util.ArrayList;
 import java.util.List;
 
-public class DeviceManagementAdapter extends RecyclerView.Adapter<DeviceManagementAdapter.ViewHolder> {
+public class DeviceManagementAdapter extends ListAdapter<ApiModels.StatusRow, DeviceManagementAdapter.ViewHolder> {
+
+    private final RowDiff.StableIds ids = new RowDiff.StableIds();
 
-    private final List<ApiModels.StatusRow> devices = new ArrayList<>();
     private final OnEditClickListener listener;
 
     public interface OnEditClickListener {
@@ -23,15 +24,19 @@ public class DeviceManagementAdapter extends RecyclerView.Adapter<DeviceManageme
     }
 
     public DeviceManagementAdapter(OnEditClickListener listener) {
+        super(RowDiff.STATUS);
         this.listener = listener;
+        setHasStableIds(true);
     }
 
+    // Diffed by esp32_id in the background; an unchanged reload rebinds nothing
     public void setDevices(List<ApiModels.StatusRow> newDevices) {
-        devices.clear();
-        if (newDevices != null) {
-            devices.addAll(newDevices);
-        }
-        notifyDataSetChanged();
+        submitList(newDevices);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return ids.of(getItem(position), position);
     }
 
     @NonNull
@@ -39,12 +44,19 @@ public class DeviceManagementAdapter extends RecyclerView.Adapter<DeviceManageme
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_device_management, parent, false);
-        return new ViewHolder(view);
+        ViewHolder holder = new ViewHolder(view);
+        holder.btnEdit.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (listener != null && position != RecyclerView.NO_POSITION) {
+                listener.onEditClick(getItem(position));
+            }
+        });
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        ApiModels.StatusRow device = devices.get(position);
+        ApiModels.StatusRow device = getItem(position);
 
         holder.txtDeviceId.setText(device.esp32_id);
 
@@ -57,17 +69,6 @@ public class DeviceManagementAdapter extends RecyclerView.Adapter<DeviceManageme
         holder.txtBlock.setText("Block: " + blockText);
 
         holder.txtStatus.setText("Status: " + device.last_status);
-
-        holder.btnEdit.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onEditClick(device);
-            }
-        });
-    }
-
-    @Override
-    public int getItemCount() {
-        return devices.size();
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
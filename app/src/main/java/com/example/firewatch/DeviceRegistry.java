@@ -0,0 +1,172 @@
+package com.example.firewatch;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Last known state of every device, one int slot per esp32_id.
+ *
+ * A device keeps its slot for the life of the registry, so callers can hold
+ * on to slot numbers between snapshots. State is stored column-wise in
+ * primitive arrays: about 40 bytes per device including the id table,
+ * against several hundred for a HashMap entry holding a StatusRow.
+ *
+ * Once the arrays have grown to the fleet size, put() for a known device
+ * allocates nothing. Not thread safe; call from one thread.
+ */
+public final class DeviceRegistry {
+
+    public static final int NO_SLOT = -1;
+
+    private static final DeviceStatus[] STATUSES = DeviceStatus.values();
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Open addressing id -> slot, at most half full; keys[i] == null marks a free bucket
+    private String[] keys = new String[INITIAL_CAPACITY * 2];
+    private int[] buckets = new int[INITIAL_CAPACITY * 2];
+
+    // Columns indexed by slot
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private byte[] status = new byte[INITIAL_CAPACITY];
+    private long[] updatedMs = new long[INITIAL_CAPACITY];
+    private String[] location = new String[INITIAL_CAPACITY];
+    private String[] block = new String[INITIAL_CAPACITY];
+    private final BitSet maintenance = new BitSet();
+    private final BitSet present = new BitSet();
+
+    private int slotCount;
+
+    /**
+     * Slot assigned to this device, or NO_SLOT if it has never been seen
+     */
+    public int slotOf(String esp32Id) {
+        int mask = keys.length - 1;
+        for (int i = spread(esp32Id.hashCode()) & mask; ; i = (i + 1) & mask) {
+            String key = keys[i];
+            if (key == null) return NO_SLOT;
+            if (key == esp32Id || key.equals(esp32Id)) return buckets[i];
+        }
+    }
+
+    /**
+     * Slot for this device, assigning one without recording any state. Lets
+     * list adapters derive stable item ids from esp32_id.
+     */
+    public int slotFor(String esp32Id) {
+        int slot = slotOf(esp32Id);
+        return slot != NO_SLOT ? slot : assign(esp32Id);
+    }
+
+    /**
+     * Records the device's current state and marks it present.
+     *
+     * @return the device's slot, assigned on first sight
+     */
+    public int put(String esp32Id, DeviceStatus state, long lastUpdatedMs,
+                   boolean inMaintenance, String location, String block) {
+        int slot = slotFor(esp32Id);
+
+        status[slot] = (byte) state.ordinal();
+        updatedMs[slot] = lastUpdatedMs;
+        this.location[slot] = location;
+        this.block[slot] = block;
+        maintenance.set(slot, inMaintenance);
+        present.set(slot);
+        return slot;
+    }
+
+    /**
+     * Marks the device as gone. Its slot stays reserved in case it comes back.
+     */
+    public void remove(int slot) {
+        present.clear(slot);
+        maintenance.clear(slot);
+        location[slot] = null;
+        block[slot] = null;
+    }
+
+    public boolean isPresent(int slot) {
+        return present.get(slot);
+    }
+
+    /**
+     * Next present slot at or after fromSlot, or NO_SLOT; for iterating like BitSet.nextSetBit
+     */
+    public int nextPresent(int fromSlot) {
+        return present.nextSetBit(fromSlot);
+    }
+
+    public String id(int slot) {
+        return ids[slot];
+    }
+
+    public DeviceStatus status(int slot) {
+        return STATUSES[status[slot]];
+    }
+
+    public long lastUpdatedMs(int slot) {
+        return updatedMs[slot];
+    }
+
+    public boolean inMaintenance(int slot) {
+        return maintenance.get(slot);
+    }
+
+    public String location(int slot) {
+        return location[slot];
+    }
+
+    public String block(int slot) {
+        return block[slot];
+    }
+
+    /**
+     * Devices in the last snapshot
+     */
+    public int size() {
+        return present.cardinality();
+    }
+
+    private int assign(String esp32Id) {
+        int slot = slotCount++;
+        if (slot == ids.length) growColumns();
+        ids[slot] = esp32Id;
+
+        if (slotCount * 2 > keys.length) rehash(keys.length * 2);
+        insert(keys, buckets, esp32Id, slot);
+        return slot;
+    }
+
+    private void growColumns() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        status = Arrays.copyOf(status, capacity);
+        updatedMs = Arrays.copyOf(updatedMs, capacity);
+        location = Arrays.copyOf(location, capacity);
+        block = Arrays.copyOf(block, capacity);
+    }
+
+    private void rehash(int tableSize) {
+        String[] newKeys = new String[tableSize];
+        int[] newBuckets = new int[tableSize];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) insert(newKeys, newBuckets, keys[i], buckets[i]);
+        }
+        keys = newKeys;
+        buckets = newBuckets;
+    }
+
+    private static void insert(String[] keys, int[] buckets, String key, int slot) {
+        int mask = keys.length - 1;
+        int i = spread(key.hashCode()) & mask;
+        while (keys[i] != null) i = (i + 1) & mask;
+        keys[i] = key;
+        buckets[i] = slot;
+    }
+
+    // Ids like "ESP32_0012" differ only in their last characters; mix those into the low bits
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
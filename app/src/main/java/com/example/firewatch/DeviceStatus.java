@@ -0,0 +1,46 @@
+package com.example.firewatch;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Sensor state as reported in status.last_status and logs.status.
+ *
+ * The server sends free-form strings; anything that isn't one of the known
+ * values (including null) maps to UNKNOWN. MAINTENANCE never comes from the
+ * wire: it is what StatusRow.effectiveState() reports while check is off.
+ */
+public enum DeviceStatus {
+    FIRE("fire"),
+    SAFE("safe"),
+    FAILED("failed"),
+    MAINTENANCE(null),
+    UNKNOWN(null);
+
+    private final String wire;
+
+    DeviceStatus(String wire) {
+        this.wire = wire;
+    }
+
+    /**
+     * Value as stored in the database, or null for MAINTENANCE and UNKNOWN
+     */
+    @Nullable
+    public String wire() {
+        return wire;
+    }
+
+    public static DeviceStatus fromWire(@Nullable String value) {
+        if (value == null) return UNKNOWN;
+        // Exact match first: the ESP32 firmware always sends lower case
+        switch (value) {
+            case "fire": return FIRE;
+            case "safe": return SAFE;
+            case "failed": return FAILED;
+        }
+        if (value.equalsIgnoreCase("fire")) return FIRE;
+        if (value.equalsIgnoreCase("safe")) return SAFE;
+        if (value.equalsIgnoreCase("failed")) return FAILED;
+        return UNKNOWN;
+    }
+}
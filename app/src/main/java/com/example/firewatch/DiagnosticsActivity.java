@@ -0,0 +1,102 @@
+package com.example.firewatch;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.google.android.material.appbar.MaterialToolbar;
+import com.google.android.material.button.MaterialButton;
+
+import java.util.Locale;
+
+/**
+ * Admin view of the poll schedule and the alert latency histograms.
+ */
+public class DiagnosticsActivity extends AppCompatActivity {
+
+    private TextView txtPollSchedule, txtLatency;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_diagnostics);
+
+        MaterialToolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+            getSupportActionBar().setTitle("Diagnostics");
+        }
+
+        txtPollSchedule = findViewById(R.id.txtPollSchedule);
+        txtLatency = findViewById(R.id.txtLatency);
+        MaterialButton btnClear = findViewById(R.id.btnClear);
+        MaterialButton btnRefresh = findViewById(R.id.btnRefresh);
+        MaterialButton btnExport = findViewById(R.id.btnExport);
+
+        btnRefresh.setOnClickListener(v -> render());
+        btnClear.setOnClickListener(v -> {
+            AlertLatency.clear();
+            render();
+        });
+        btnExport.setOnClickListener(v -> export());
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        render();
+    }
+
+    @Override
+    public boolean onSupportNavigateUp() {
+        finish();
+        return true;
+    }
+
+    private void render() {
+        txtPollSchedule.setText(StatusPollerService.pollSchedule());
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(AlertLatency.recorded()).append(" fire alert(s) recorded, last ")
+                .append(AlertLatency.CAPACITY).append(" kept\n");
+        for (AlertLatency.Histogram h : AlertLatency.histograms()) {
+            sb.append('\n').append(h.stage).append("  (n=").append(h.count).append(")\n");
+            if (h.count == 0) continue;
+            sb.append(String.format(Locale.US, "  p50 %d  p95 %d  p99 %d  max %d ms\n",
+                    h.p50Ms, h.p95Ms, h.p99Ms, h.maxMs));
+            for (int b = 0; b < h.buckets.length; b++) {
+                if (h.buckets[b] == 0) continue;
+                String bound = b < AlertLatency.BUCKET_BOUNDS_MS.length
+                        ? "<= " + AlertLatency.BUCKET_BOUNDS_MS[b]
+                        : " > " + AlertLatency.BUCKET_BOUNDS_MS[b - 1];
+                sb.append(String.format(Locale.US, "  %9s ms %4d ", bound, h.buckets[b]))
+                        .append(bar(h.buckets[b], h.count)).append('\n');
+            }
+        }
+        txtLatency.setText(sb.toString());
+    }
+
+    // Up to 20 characters, proportional to the bucket's share
+    private static String bar(int n, int total) {
+        int len = Math.max(1, n * 20 / total);
+        StringBuilder sb = new StringBuilder(len);
+        for (int i = 0; i < len; i++) sb.append('#');
+        return sb.toString();
+    }
+
+    private void export() {
+        if (AlertLatency.recorded() == 0) {
+            Toast.makeText(this, "Nothing recorded yet", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Intent send = new Intent(Intent.ACTION_SEND);
+        send.setType("application/json");
+        send.putExtra(Intent.EXTRA_SUBJECT, "FireWatch alert latency");
+        send.putExtra(Intent.EXTRA_TEXT, AlertLatency.toJson());
+        startActivity(Intent.createChooser(send, "Export latency JSON"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.firewatch;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The persistent fire notification, kept in step with the set of burning locations.
+ *
+ * IDLE: nothing shown. ALERTING: posted with sound and vibration. ONGOING: the
+ * same incident, updated silently. The notification is touched only when the
+ * set of locations changes; a location joining an ongoing incident alerts again,
+ * one leaving does not. Nothing counts as shown until it was posted: while
+ * notifications aren't allowed the state stays put and pending() is true, so
+ * the next update() after they are allowed raises the alert.
+ */
+final class FireAlert {
+
+    private static final String TAG = "FireAlert";
+
+    enum State { IDLE, ALERTING, ONGOING }
+
+    /**
+     * Where the alert goes; FireNotification outside tests
+     */
+    interface Notifier {
+        boolean permitted();
+        void show(State state, Set<String> locations, boolean newIncident);
+        void cancel();
+    }
+
+    private final Notifier notifier;
+
+    private State state = State.IDLE;
+    private final LinkedHashSet<String> shown = new LinkedHashSet<>();
+    // The last update() had locations to show but wasn't allowed to post
+    private boolean pending;
+    private boolean closed;
+    // Wall-clock time of the notify() made by the last update(), or 0
+    private long notifiedAt;
+
+    FireAlert(Context context, String channelId, int notificationId) {
+        this(new FireNotification(context, channelId, notificationId));
+    }
+
+    // For tests: a fake notifier
+    FireAlert(Notifier notifier) {
+        this.notifier = notifier;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Shows the alert for these locations, or removes it if there are none.
+     *
+     * @return whether the notification was posted, updated or cancelled
+     */
+    synchronized boolean update(Collection<String> locations) {
+        notifiedAt = 0;
+        if (closed) return false;
+        if (locations.isEmpty()) return clear();
+
+        LinkedHashSet<String> next = new LinkedHashSet<>(locations);
+        if (next.equals(shown)) return false;
+
+        if (!notifier.permitted()) {
+            if (!pending) Log.w(TAG, "POST_NOTIFICATIONS not granted, fire alert for " + next + " not shown");
+            pending = true;
+            return false;
+        }
+        pending = false;
+
+        boolean spreading = !shown.containsAll(next);
+        State from = state;
+        // A location joining an ongoing incident is news; one burning out is not
+        state = state == State.IDLE || spreading ? State.ALERTING : State.ONGOING;
+        shown.clear();
+        shown.addAll(next);
+        Log.i(TAG, from + " -> " + state + " " + shown);
+        notifier.show(state, shown, from == State.IDLE);
+        notifiedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * True while fires are burning that the notification doesn't show yet because
+     * posting isn't allowed; the caller should keep calling update()
+     */
+    synchronized boolean pending() {
+        return pending;
+    }
+
+    /**
+     * When the last update() called NotificationManager.notify(), or 0 if it didn't
+     */
+    synchronized long notifiedAt() {
+        return notifiedAt;
+    }
+
+    /**
+     * Removes the alert; the next fire starts a new incident
+     */
+    synchronized boolean clear() {
+        pending = false;
+        if (state == State.IDLE) return false;
+        Log.i(TAG, state + " -> " + State.IDLE);
+        state = State.IDLE;
+        shown.clear();
+        notifier.cancel();
+        return true;
+    }
+
+    /**
+     * Removes the alert for good; later updates are ignored
+     */
+    synchronized void close() {
+        clear();
+        closed = true;
+    }
+}
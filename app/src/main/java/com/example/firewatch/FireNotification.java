@@ -0,0 +1,99 @@
+package com.example.firewatch;
+
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Color;
+import android.text.TextUtils;
+
+import androidx.core.app.NotificationCompat;
+
+import java.util.Set;
+
+/**
+ * The system notification FireAlert drives. The builder and its PendingIntents
+ * are made on first use and kept.
+ */
+final class FireNotification implements FireAlert.Notifier {
+
+    private final Context context;
+    private final String channelId;
+    private final int notificationId;
+    private final NotificationManager nm;
+
+    private NotificationCompat.Builder builder;
+    private NotificationCompat.BigTextStyle style;
+
+    FireNotification(Context context, String channelId, int notificationId) {
+        this.context = context.getApplicationContext();
+        this.channelId = channelId;
+        this.notificationId = notificationId;
+        this.nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+    }
+
+    @Override
+    public boolean permitted() {
+        return androidx.core.content.ContextCompat.checkSelfPermission(
+                context, android.Manifest.permission.POST_NOTIFICATIONS)
+                == android.content.pm.PackageManager.PERMISSION_GRANTED;
+    }
+
+    @Override
+    public void show(FireAlert.State state, Set<String> locations, boolean newIncident) {
+        if (builder == null) builder = createBuilder();
+        // Incident start time; later updates keep it
+        if (newIncident) builder.setWhen(System.currentTimeMillis());
+
+        String text;
+        if (locations.size() == 1) {
+            text = "Fire alert at " + locations.iterator().next();
+        } else {
+            text = "Fire detected at " + locations.size() + " location(s)";
+        }
+        builder.setContentText(text)
+                .setStyle(style.bigText(text + "\n\n" + TextUtils.join(", ", locations)
+                        + "\n\nTap to view details or call emergency services."))
+                // Updates without a new location replace the text without sound
+                .setOnlyAlertOnce(state == FireAlert.State.ONGOING);
+
+        nm.notify(notificationId, builder.build());
+    }
+
+    @Override
+    public void cancel() {
+        nm.cancel(notificationId);
+    }
+
+    private NotificationCompat.Builder createBuilder() {
+        // Create intent to open app
+        Intent intent = new Intent(context, MainActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+                context, 0, intent, PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT
+        );
+
+        // Create emergency call action
+        Intent callIntent = new Intent(Intent.ACTION_DIAL);
+        callIntent.setData(android.net.Uri.parse("tel:101"));
+        PendingIntent callPendingIntent = PendingIntent.getActivity(
+                context, 1, callIntent, PendingIntent.FLAG_IMMUTABLE
+        );
+
+        style = new NotificationCompat.BigTextStyle();
+        return new NotificationCompat.Builder(context, channelId)
+                .setSmallIcon(android.R.drawable.stat_notify_error)
+                .setContentTitle("🔥 FIRE DETECTED!")
+                .setShowWhen(true)
+                .setPriority(NotificationCompat.PRIORITY_MAX)
+                .setCategory(NotificationCompat.CATEGORY_ALARM)
+                .setOngoing(true) // Make it persistent
+                .setAutoCancel(false) // Don't dismiss on tap
+                .setContentIntent(pendingIntent)
+                .addAction(android.R.drawable.ic_menu_call, "Call 101", callPendingIntent)
+                .setColor(Color.RED)
+                .setColorized(true)
+                .setVibrate(new long[]{0, 400, 200, 400})
+                .setLights(Color.RED, 1000, 1000);
+    }
+}
@@ -1,44 +1,69 @@
 package com.example.firewatch;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.RectF;
 import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
 import android.view.View;
 import androidx.annotation.Nullable;
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Set;
 
 public class FloorMapView extends View {
 
-    private Paint paintSafe, paintFire, paintStairs, paintLift, paintText, paintWall, paintBorder;
+    private Paint paintSafe, paintFire, paintStairs, paintLift, paintText, paintFireText, paintWall, paintBorder;
     private BuildingConfig.Floor floor;
-    private Set<String> fireRooms;
+    private BitSet firePositions; // room positions on fire on this floor
 
     private float scale;
     private static final int BORDER_WIDTH = 3;
 
-    private static class RoomSpec {
-        RectF bounds;
-        String label;
-        String type;
-
-        RoomSpec(float left, float top, float right, float bottom, String label, String type) {
-            this.bounds = new RectF(left, top, right, bottom);
-            this.label = label;
-            this.type = type;
-        }
+    // Cell rectangles in view pixels, 4 floats per cell; depends only on the template and the scale
+    private float[] cellBounds = new float[0];
+    private List<BuildingConfig.Cell> boundsCells;
+    private float boundsScale;
+    // Cell index drawing each room position, -1 for none
+    private int[] cellOfPosition = new int[0];
+
+    // Walls, rooms and labels of the current floor without any fire; redrawn only when
+    // the floor or the view size changes. Fires are painted over it on each frame.
+    private Bitmap staticLayer;
+    private final Canvas layerCanvas = new Canvas();
+    private BuildingConfig.Floor layerFloor;
+
+    // Spatial index of the current template, for culling and hit-testing while zoomed
+    private CellGrid grid;
+    private List<BuildingConfig.Cell> gridCells;
+    private final BitSet visibleCells = new BitSet();
+
+    // Viewport: content is scaled by zoom about the origin, then shifted by pan (view pixels)
+    private static final float MAX_ZOOM = 8f;
+    private float zoom = 1f;
+    private float panX, panY;
+    private ScaleGestureDetector scaleDetector;
+    private GestureDetector gestureDetector;
+
+    public interface OnRoomClickListener {
+        void onRoomClick(BuildingConfig.Room room, boolean onFire);
     }
 
+    private OnRoomClickListener roomClickListener;
+
+    // Reused for every cell while drawing
+    private final RectF cellRect = new RectF();
+
     public FloorMapView(Context context) { super(context); init(); }
     public FloorMapView(Context context, @Nullable AttributeSet attrs) { super(context, attrs); init(); }
 
     private void init() {
-        fireRooms = new HashSet<>();
+        firePositions = new BitSet();
         scale = 1.0f;
 
         paintSafe = new Paint(Paint.ANTI_ALIAS_FLAG);
@@ -72,11 +97,65 @@ public class FloorMapView extends View {
         paintText.setTextSize(16); // Increased base font size
         paintText.setTextAlign(Paint.Align.CENTER);
         paintText.setTypeface(android.graphics.Typeface.create(android.graphics.Typeface.DEFAULT, android.graphics.Typeface.BOLD));
+
+        paintFireText = new Paint(paintText);
+        paintFireText.setColor(Color.WHITE);
+
+        scaleDetector = new ScaleGestureDetector(getContext(), new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(ScaleGestureDetector detector) {
+                zoomBy(detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
+                return true;
+            }
+        });
+        gestureDetector = new GestureDetector(getContext(), new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(MotionEvent e1, MotionEvent e2, float dx, float dy) {
+                if (zoom <= 1f) return false;
+                panBy(-dx, -dy);
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(MotionEvent e) {
+                // Toggle between the whole floor and a close-up of the tapped spot
+                if (zoom > 1f) {
+                    resetViewport();
+                } else {
+                    zoomBy(3f, e.getX(), e.getY());
+                }
+                return true;
+            }
+
+            @Override
+            public boolean onSingleTapConfirmed(MotionEvent e) {
+                return dispatchRoomClick(e.getX(), e.getY());
+            }
+        });
+    }
+
+    public void setOnRoomClickListener(@Nullable OnRoomClickListener listener) {
+        roomClickListener = listener;
     }
 
-    public void setFloor(BuildingConfig.Floor floor, Set<String> fireRooms) {
+    /**
+     * @param firePositions positions of burning rooms on this floor; read on every draw, not copied
+     */
+    public void setFloor(BuildingConfig.Floor floor, BitSet firePositions) {
+        boolean resized = floor != null && (this.floor == null
+                || this.floor.width != floor.width || this.floor.height != floor.height);
         this.floor = floor;
-        this.fireRooms = fireRooms != null ? fireRooms : new HashSet<>();
+        this.firePositions = firePositions != null ? firePositions : new BitSet();
+        if (resized) {
+            resetViewport();
+            requestLayout();
+        }
+        // Same floor with new fires only repaints the overlay; the static layer is kept
         invalidate();
     }
 
@@ -86,212 +165,252 @@ public class FloorMapView extends View {
 
         // Use full width minus border
         float availableWidth = parentWidth - (BORDER_WIDTH * 2);
-        scale = availableWidth / 1000f;
+        float designWidth = floor != null ? floor.width : 1000f;
+        float designHeight = floor != null ? floor.height : 500f;
+        scale = availableWidth / designWidth;
 
         // Scale text size proportionally with larger base size
         paintText.setTextSize(16 * scale);
+        paintFireText.setTextSize(16 * scale);
 
         int width = parentWidth;
-        int height = (int)(500 * scale) + (BORDER_WIDTH * 2);
+        int height = (int)(designHeight * scale) + (BORDER_WIDTH * 2);
 
         setMeasuredDimension(width, height);
     }
 
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        layerFloor = null;
+        clampPan();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (floor == null) return super.onTouchEvent(event);
+        boolean handled = scaleDetector.onTouchEvent(event);
+        handled |= gestureDetector.onTouchEvent(event);
+        // Keep a scrolling parent from stealing pinches and pans of the zoomed map
+        if (getParent() != null && (zoom > 1f || scaleDetector.isInProgress() || event.getPointerCount() > 1)) {
+            getParent().requestDisallowInterceptTouchEvent(true);
+        }
+        return handled || super.onTouchEvent(event);
+    }
+
+    private void zoomBy(float factor, float focusX, float focusY) {
+        float next = Math.max(1f, Math.min(MAX_ZOOM, zoom * factor));
+        if (next == zoom) return;
+        // Keep the content under the focus point where it is
+        panX = focusX - (focusX - panX) * next / zoom;
+        panY = focusY - (focusY - panY) * next / zoom;
+        zoom = next;
+        clampPan();
+        invalidate();
+    }
+
+    private void panBy(float dx, float dy) {
+        panX += dx;
+        panY += dy;
+        clampPan();
+        invalidate();
+    }
+
+    private void clampPan() {
+        panX = Math.max(getWidth() - getWidth() * zoom, Math.min(0f, panX));
+        panY = Math.max(getHeight() - getHeight() * zoom, Math.min(0f, panY));
+    }
+
+    public void resetViewport() {
+        zoom = 1f;
+        panX = 0f;
+        panY = 0f;
+        invalidate();
+    }
+
+    private boolean dispatchRoomClick(float x, float y) {
+        if (roomClickListener == null || floor == null || scale <= 0) return false;
+        ensureCellBounds();
+        // View pixels -> design units of the floor template
+        float designX = ((x - panX) / zoom - BORDER_WIDTH) / scale;
+        float designY = ((y - panY) / zoom - BORDER_WIDTH) / scale;
+        int i = grid.hit(designX, designY);
+        if (i < 0) return false;
+        BuildingConfig.Room room = floor.room(floor.cells.get(i).position);
+        if (room == null) return false;
+        roomClickListener.onRoomClick(room, firePositions.get(room.position));
+        return true;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (staticLayer != null) {
+            staticLayer.recycle();
+            staticLayer = null;
+            layerFloor = null;
+        }
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
+
+        if (floor == null || getWidth() == 0 || getHeight() == 0) {
+            canvas.drawColor(Color.WHITE);
+            return;
+        }
+
+        if (zoom > 1f) {
+            drawZoomed(canvas);
+            return;
+        }
+
+        ensureStaticLayer();
+        canvas.drawBitmap(staticLayer, 0, 0, null);
+        drawFires(canvas);
+    }
+
+    // A scaled bitmap would blur, so zoomed frames draw vectors, culled to the viewport
+    private void drawZoomed(Canvas canvas) {
+        ensureCellBounds();
         canvas.drawColor(Color.WHITE);
 
-        if (floor == null) return;
+        // Viewport in design units
+        float left = (-panX / zoom - BORDER_WIDTH) / scale;
+        float top = (-panY / zoom - BORDER_WIDTH) / scale;
+        float right = ((getWidth() - panX) / zoom - BORDER_WIDTH) / scale;
+        float bottom = ((getHeight() - panY) / zoom - BORDER_WIDTH) / scale;
+        visibleCells.clear();
+        grid.query(left, top, right, bottom, visibleCells);
+
+        canvas.save();
+        canvas.translate(panX, panY);
+        canvas.scale(zoom, zoom);
+        List<BuildingConfig.Cell> cells = floor.cells;
+        for (int i = visibleCells.nextSetBit(0); i >= 0; i = visibleCells.nextSetBit(i + 1)) {
+            BuildingConfig.Cell cell = cells.get(i);
+            cellRect.set(cellBounds[i * 4], cellBounds[i * 4 + 1], cellBounds[i * 4 + 2], cellBounds[i * 4 + 3]);
+            if ("wall".equals(cell.kind)) {
+                canvas.drawLine(cellRect.left, cellRect.top, cellRect.right, cellRect.bottom, paintWall);
+                continue;
+            }
+            BuildingConfig.Room room = floor.room(cell.position);
+            drawRoom(canvas, cellRect, cell.kind, room, room != null && firePositions.get(room.position));
+        }
+        canvas.restore();
+
+        canvas.drawRect(
+                BORDER_WIDTH / 2f,
+                BORDER_WIDTH / 2f,
+                getWidth() - BORDER_WIDTH / 2f,
+                getHeight() - BORDER_WIDTH / 2f,
+                paintBorder
+        );
+    }
+
+    private void ensureStaticLayer() {
+        if (layerFloor == floor && staticLayer != null) return;
+
+        ensureCellBounds();
+        if (staticLayer == null || staticLayer.getWidth() != getWidth() || staticLayer.getHeight() != getHeight()) {
+            if (staticLayer != null) staticLayer.recycle();
+            staticLayer = Bitmap.createBitmap(getWidth(), getHeight(), Bitmap.Config.ARGB_8888);
+            layerCanvas.setBitmap(staticLayer);
+        }
+
+        layerCanvas.drawColor(Color.WHITE);
 
         // Draw the floor layout
-        drawFloorLayout(canvas, floor.floorNumber);
+        drawFloorLayout(layerCanvas);
 
         // Draw black border around entire view
-        canvas.drawRect(
+        layerCanvas.drawRect(
                 BORDER_WIDTH / 2f,
                 BORDER_WIDTH / 2f,
                 getWidth() - BORDER_WIDTH / 2f,
                 getHeight() - BORDER_WIDTH / 2f,
                 paintBorder
         );
+        layerFloor = floor;
     }
 
-    private void drawFloorLayout(Canvas canvas, int floorNumber) {
-        List<RoomSpec> layout = createFloorLayout(floorNumber);
+    // Floors built from the same template share their cell list, so this survives floor changes
+    private void ensureCellBounds() {
+        if (gridCells != floor.cells) {
+            grid = new CellGrid(floor.cells, floor.width, floor.height);
+            gridCells = floor.cells;
+        }
+        if (boundsCells == floor.cells && boundsScale == scale) return;
+
+        List<BuildingConfig.Cell> cells = floor.cells;
+        if (cellBounds.length < cells.size() * 4) cellBounds = new float[cells.size() * 4];
+        int maxPosition = -1;
+        for (int i = 0; i < cells.size(); i++) {
+            BuildingConfig.Cell cell = cells.get(i);
+            cellBounds[i * 4] = BORDER_WIDTH + scale(cell.left);
+            cellBounds[i * 4 + 1] = BORDER_WIDTH + scale(cell.top);
+            cellBounds[i * 4 + 2] = BORDER_WIDTH + scale(cell.right);
+            cellBounds[i * 4 + 3] = BORDER_WIDTH + scale(cell.bottom);
+            maxPosition = Math.max(maxPosition, cell.position);
+        }
+
+        cellOfPosition = new int[maxPosition + 1];
+        Arrays.fill(cellOfPosition, -1);
+        for (int i = 0; i < cells.size(); i++) {
+            BuildingConfig.Cell cell = cells.get(i);
+            if (cell.position >= 0 && !"wall".equals(cell.kind)) cellOfPosition[cell.position] = i;
+        }
 
-        for (RoomSpec spec : layout) {
-            if ("wall".equals(spec.type)) {
-                drawWall(canvas, spec);
+        boundsCells = cells;
+        boundsScale = scale;
+    }
+
+    private void drawFloorLayout(Canvas canvas) {
+        List<BuildingConfig.Cell> cells = floor.cells;
+        for (int i = 0; i < cells.size(); i++) {
+            BuildingConfig.Cell cell = cells.get(i);
+            cellRect.set(cellBounds[i * 4], cellBounds[i * 4 + 1], cellBounds[i * 4 + 2], cellBounds[i * 4 + 3]);
+
+            if ("wall".equals(cell.kind)) {
+                canvas.drawLine(cellRect.left, cellRect.top, cellRect.right, cellRect.bottom, paintWall);
                 continue;
             }
 
-            BuildingConfig.Room room = null;
-            if (floor != null && floor.rooms != null) {
-                for (BuildingConfig.Room r : floor.rooms) {
-                    if (spec.label.equals(r.id) ||
-                            (spec.label.equals("Stairs") && r.isStairs) ||
-                            (spec.label.equals("Lift") && "Lift".equals(spec.label))) {
-                        room = r;
-                        break;
-                    }
-                }
-            }
+            drawRoom(canvas, cellRect, cell.kind, floor.room(cell.position), false);
+        }
+    }
 
-            drawRoom(canvas, spec, room);
+    // Burning rooms over the static layer; walks the fire bits, not the cells
+    private void drawFires(Canvas canvas) {
+        for (int pos = firePositions.nextSetBit(0); pos >= 0; pos = firePositions.nextSetBit(pos + 1)) {
+            if (pos >= cellOfPosition.length) break;
+            int i = cellOfPosition[pos];
+            if (i < 0) continue;
+            BuildingConfig.Cell cell = floor.cells.get(i);
+            cellRect.set(cellBounds[i * 4], cellBounds[i * 4 + 1], cellBounds[i * 4 + 2], cellBounds[i * 4 + 3]);
+            drawRoom(canvas, cellRect, cell.kind, floor.room(cell.position), true);
         }
     }
 
-    private List<RoomSpec> createFloorLayout(int floorNumber) {
-        List<RoomSpec> specs = new ArrayList<>();
-        float offsetX = BORDER_WIDTH;
-        float offsetY = BORDER_WIDTH;
-
-        String room1 = floorNumber + "01";
-        String room2 = floorNumber + "02";
-        String room3 = floorNumber + "03";
-        String room4 = floorNumber + "04";
-        String room5 = floorNumber + "05";
-        String room6 = floorNumber + "06";
-        String room7 = floorNumber + "07";
-        String room8 = floorNumber + "08";
-        String room9 = floorNumber + "09";
-        String room10 = floorNumber + "10";
-        String room11 = floorNumber + "11";
-
-        // Room 1 - Bottom Left
-        specs.add(new RoomSpec(
-                offsetX + scale(50), offsetY + scale(280),
-                offsetX + scale(110), offsetY + scale(380),
-                room1, "room"
-        ));
-
-        // Room 2 - Lift
-        specs.add(new RoomSpec(
-                offsetX + scale(120), offsetY + scale(230),
-                offsetX + scale(170), offsetY + scale(330),
-                "Lift", "lift"
-        ));
-
-        // Room 3 - Next to Lift
-        specs.add(new RoomSpec(
-                offsetX + scale(180), offsetY + scale(270),
-                offsetX + scale(270), offsetY + scale(330),
-                room2, "room"
-        ));
-
-        // Room 4 - Tall room
-        specs.add(new RoomSpec(
-                offsetX + scale(275), offsetY + scale(220),
-                offsetX + scale(350), offsetY + scale(330),
-                room3, "room"
-        ));
-
-        // Room 5 - Bottom area left
-        specs.add(new RoomSpec(
-                offsetX + scale(85), offsetY + scale(405),
-                offsetX + scale(165), offsetY + scale(455),
-                room4, "room"
-        ));
-
-        // Room 6 - Stairs (bottom)
-        specs.add(new RoomSpec(
-                offsetX + scale(180), offsetY + scale(405),
-                offsetX + scale(240), offsetY + scale(455),
-                "Stairs", "stairs"
-        ));
-
-        // Room 7 - Bottom middle
-        specs.add(new RoomSpec(
-                offsetX + scale(250), offsetY + scale(405),
-                offsetX + scale(325), offsetY + scale(455),
-                room5, "room"
-        ));
-
-        // Room 8 - Bottom right of left section
-        specs.add(new RoomSpec(
-                offsetX + scale(355), offsetY + scale(405),
-                offsetX + scale(455), offsetY + scale(455),
-                room6, "room"
-        ));
-
-        // Vertical wall separator
-        specs.add(new RoomSpec(
-                offsetX + scale(435), offsetY + scale(340),
-                offsetX + scale(435), offsetY + scale(395),
-                "", "wall"
-        ));
-
-        // Room 9 - Middle section left
-        specs.add(new RoomSpec(
-                offsetX + scale(415), offsetY + scale(255),
-                offsetX + scale(555), offsetY + scale(330),
-                room7, "room"
-        ));
-
-        // Room 10 - Middle section center
-        specs.add(new RoomSpec(
-                offsetX + scale(570), offsetY + scale(255),
-                offsetX + scale(660), offsetY + scale(330),
-                room8, "room"
-        ));
-
-        // Room 11 - Middle section right
-        specs.add(new RoomSpec(
-                offsetX + scale(675), offsetY + scale(255),
-                offsetX + scale(785), offsetY + scale(330),
-                room9, "room"
-        ));
-
-        // Horizontal wall line - top
-        specs.add(new RoomSpec(
-                offsetX + scale(340), offsetY + scale(160),
-                offsetX + scale(770), offsetY + scale(160),
-                "", "wall"
-        ));
-
-        // Room 12 - Top Right
-        specs.add(new RoomSpec(
-                offsetX + scale(810), offsetY + scale(45),
-                offsetX + scale(905), offsetY + scale(165),
-                room10, "room"
-        ));
-
-        // Room 13 - Right side middle
-        specs.add(new RoomSpec(
-                offsetX + scale(900), offsetY + scale(185),
-                offsetX + scale(975), offsetY + scale(260),
-                room11, "room"
-        ));
-
-        // Room 14 - Stairs (right side)
-        specs.add(new RoomSpec(
-                offsetX + scale(808), offsetY + scale(280),
-                offsetX + scale(903), offsetY + scale(395),
-                "Stairs", "stairs"
-        ));
-
-        return specs;
+    // Stairs and lift cells show their kind; rooms show their id
+    private static String labelFor(String kind, BuildingConfig.Room room) {
+        if ("stairs".equals(kind)) return "Stairs";
+        if ("lift".equals(kind)) return "Lift";
+        return room != null ? room.id : "";
     }
 
     private float scale(float value) {
         return value * scale;
     }
 
-    private void drawRoom(Canvas canvas, RoomSpec spec, BuildingConfig.Room room) {
-        RectF rect = spec.bounds;
-
-        boolean isFire = false;
-        if (room != null && fireRooms.contains(room.id)) {
-            isFire = true;
-        }
-
+    private void drawRoom(Canvas canvas, RectF rect, String kind, BuildingConfig.Room room, boolean isFire) {
         Paint fillPaint;
         if (isFire) {
             fillPaint = paintFire;
-        } else if ("stairs".equals(spec.type)) {
+        } else if ("stairs".equals(kind)) {
             fillPaint = paintStairs;
-        } else if ("lift".equals(spec.type)) {
+        } else if ("lift".equals(kind)) {
             fillPaint = paintLift;
         } else {
             fillPaint = paintSafe;
@@ -300,24 +419,12 @@ public class FloorMapView extends View {
         canvas.drawRect(rect, fillPaint);
         canvas.drawRect(rect, paintWall);
 
-        if (spec.label != null && !spec.label.isEmpty()) {
+        String label = labelFor(kind, room);
+        if (!label.isEmpty()) {
+            Paint textPaint = isFire ? paintFireText : paintText;
             float textX = rect.centerX();
-            float textY = rect.centerY() + (paintText.getTextSize() / 3);
-
-            if (isFire) {
-                paintText.setColor(Color.WHITE);
-            } else {
-                paintText.setColor(Color.BLACK);
-            }
-
-            canvas.drawText(spec.label, textX, textY, paintText);
-
-            paintText.setColor(Color.BLACK);
+            float textY = rect.centerY() + (textPaint.getTextSize() / 3);
+            canvas.drawText(label, textX, textY, textPaint);
         }
     }
-
-    private void drawWall(Canvas canvas, RoomSpec spec) {
-        RectF bounds = spec.bounds;
-        canvas.drawLine(bounds.left, bounds.top, bounds.right, bounds.bottom, paintWall);
-    }
-}
\ No newline at end of file
+}
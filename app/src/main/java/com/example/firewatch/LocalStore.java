@@ -0,0 +1,208 @@
+package com.example.firewatch;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * On-device copy of the last status snapshot and recent log history.
+ *
+ * Dashboards render from here the moment they open, before the first network
+ * round trip, and fall back to it while the phone is offline. Network results
+ * are written through on a single background thread via execute().
+ */
+public class LocalStore extends SQLiteOpenHelper {
+
+    private static final String DB_NAME = "firewatch.db";
+    // 2: epoch-millis columns to sort on
+    private static final int DB_VERSION = 2;
+
+    // Per-device history kept on disk; older rows are only available online
+    private static final int MAX_LOGS_PER_DEVICE = 200;
+
+    private static LocalStore instance;
+
+    public static synchronized LocalStore get(Context ctx) {
+        if (instance == null) {
+            instance = new LocalStore(ctx.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+
+    private LocalStore(Context ctx) {
+        super(ctx, DB_NAME, null, DB_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE status ("
+                + "esp32_id TEXT PRIMARY KEY, "
+                + "last_status TEXT, "
+                + "last_updated TEXT, "
+                + "last_updated_ms INTEGER, " // Timestamps.parse(last_updated); the text may mix offsets
+                + "location TEXT, "
+                + "block TEXT, "
+                + "check_flag INTEGER)"); // NULL, 0 or 1, mirrors the nullable check column
+        db.execSQL("CREATE TABLE logs ("
+                + "id INTEGER PRIMARY KEY, "
+                + "esp32_id TEXT, "
+                + "status TEXT, "
+                + "timestamp TEXT, "
+                + "timestamp_ms INTEGER, "
+                + "location TEXT, "
+                + "block TEXT)");
+        db.execSQL("CREATE INDEX logs_device_time ON logs (esp32_id, timestamp_ms DESC, id DESC)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Everything here is a cache of the server, so just start over
+        db.execSQL("DROP TABLE IF EXISTS status");
+        db.execSQL("DROP TABLE IF EXISTS logs");
+        onCreate(db);
+    }
+
+    /**
+     * Run disk work off the main thread, in submission order.
+     */
+    public void execute(Runnable task) {
+        io.execute(task);
+    }
+
+    // status
+
+    public List<ApiModels.StatusRow> loadStatus() {
+        List<ApiModels.StatusRow> rows = new ArrayList<>();
+        try (Cursor c = getReadableDatabase().query("status",
+                new String[]{"esp32_id", "last_status", "last_updated", "location", "block", "check_flag",
+                        "last_updated_ms"},
+                null, null, null, null, "last_updated_ms DESC")) {
+            while (c.moveToNext()) {
+                ApiModels.StatusRow row = new ApiModels.StatusRow();
+                row.esp32_id = StringPool.intern(c.getString(0));
+                row.last_status = StringPool.intern(c.getString(1));
+                row.last_updated = c.getString(2);
+                row.location = StringPool.intern(c.getString(3));
+                row.block = StringPool.intern(c.getString(4));
+                row.check = c.isNull(5) ? null : c.getInt(5) != 0;
+                row.lastUpdatedMillis = c.getLong(6);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Replace the stored snapshot with a full one from the server.
+     */
+    public void replaceStatus(List<ApiModels.StatusRow> rows) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete("status", null, null);
+            for (ApiModels.StatusRow row : rows) {
+                db.insert("status", null, statusValues(row));
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Merge rows from a delta sync or a realtime push.
+     */
+    public void upsertStatus(List<ApiModels.StatusRow> rows) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (ApiModels.StatusRow row : rows) {
+                db.insertWithOnConflict("status", null, statusValues(row), SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public void deleteStatus(String esp32Id) {
+        getWritableDatabase().delete("status", "esp32_id = ?", new String[]{esp32Id});
+    }
+
+    private static ContentValues statusValues(ApiModels.StatusRow row) {
+        ContentValues v = new ContentValues();
+        v.put("esp32_id", row.esp32_id);
+        v.put("last_status", row.last_status);
+        v.put("last_updated", row.last_updated);
+        v.put("last_updated_ms", row.lastUpdatedMs());
+        v.put("location", row.location);
+        v.put("block", row.block);
+        if (row.check == null) {
+            v.putNull("check_flag");
+        } else {
+            v.put("check_flag", row.check ? 1 : 0);
+        }
+        return v;
+    }
+
+    // logs
+
+    /**
+     * Newest logs for one device, same order as SupabaseApi.getLogsByDevice()
+     */
+    public List<ApiModels.LogRow> loadLogs(String esp32Id, int limit) {
+        List<ApiModels.LogRow> rows = new ArrayList<>();
+        try (Cursor c = getReadableDatabase().query("logs",
+                new String[]{"id", "esp32_id", "status", "timestamp", "location", "block", "timestamp_ms"},
+                "esp32_id = ?", new String[]{esp32Id}, null, null,
+                "timestamp_ms DESC, id DESC", String.valueOf(limit))) {
+            while (c.moveToNext()) {
+                ApiModels.LogRow row = new ApiModels.LogRow();
+                row.id = c.getLong(0);
+                row.esp32_id = StringPool.intern(c.getString(1));
+                row.status = StringPool.intern(c.getString(2));
+                row.timestamp = c.getString(3);
+                row.location = StringPool.intern(c.getString(4));
+                row.block = StringPool.intern(c.getString(5));
+                row.timestampMillis = c.getLong(6);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    public void saveLogs(String esp32Id, List<ApiModels.LogRow> rows) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (ApiModels.LogRow row : rows) {
+                ContentValues v = new ContentValues();
+                v.put("id", row.id);
+                v.put("esp32_id", row.esp32_id);
+                v.put("status", row.status);
+                v.put("timestamp", row.timestamp);
+                v.put("timestamp_ms", row.timestampMs());
+                v.put("location", row.location);
+                v.put("block", row.block);
+                db.insertWithOnConflict("logs", null, v, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            // Keep only the newest rows for this device
+            db.execSQL("DELETE FROM logs WHERE esp32_id = ? AND id NOT IN ("
+                            + "SELECT id FROM logs WHERE esp32_id = ? ORDER BY timestamp_ms DESC, id DESC LIMIT "
+                            + MAX_LOGS_PER_DEVICE + ")",
+                    new Object[]{esp32Id, esp32Id});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
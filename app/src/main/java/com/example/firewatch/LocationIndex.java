@@ -0,0 +1,92 @@
+package com.example.firewatch;
+
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Maps status.location strings ("301", "301 - Lab", "STAIRS_L_3") to rooms of
+ * the main building; room ids are only unique within a building.
+ *
+ * Each distinct string is parsed once; the result is cached by identity.
+ * Location values come out of StringPool, so the same instance comes back on
+ * every poll and a lookup is a single identity hash probe.
+ */
+public final class LocationIndex {
+
+    // Cached "not a room on the map", distinct from "not looked up yet"
+    private static final Object MISSING = new Object();
+
+    // Far above the number of devices; guards against unbounded growth from unpooled strings
+    private static final int MAX_CACHE = 4096;
+
+    private static final IdentityHashMap<String, Object> cache = new IdentityHashMap<>();
+    private static List<BuildingConfig.Floor> cachedFor;
+
+    private LocationIndex() {}
+
+    /**
+     * Room a device location refers to, or null if it isn't on the floor plan
+     */
+    public static synchronized BuildingConfig.Room resolve(String location) {
+        if (location == null) return null;
+
+        // Lookups made before the building finished loading, or against an older one, are void
+        List<BuildingConfig.Floor> building = BuildingConfig.getBuilding();
+        if (building != cachedFor) {
+            cache.clear();
+            cachedFor = building;
+        }
+
+        Object hit = cache.get(location);
+        if (hit == null) {
+            if (cache.size() >= MAX_CACHE) cache.clear();
+            BuildingConfig.Room room = BuildingConfig.getRoom(roomKey(location));
+            hit = room != null ? room : MISSING;
+            cache.put(location, hit);
+        }
+        return hit == MISSING ? null : (BuildingConfig.Room) hit;
+    }
+
+    // "301 - Lab" -> "301"; stairs ids are used as they are
+    private static String roomKey(String location) {
+        if (location.startsWith("STAIRS_")) return location;
+        int dash = location.indexOf('-');
+        return (dash >= 0 ? location.substring(0, dash) : location).trim();
+    }
+
+    /**
+     * Room positions on fire, one BitSet per floor. Reused across snapshots.
+     */
+    public static class FireSets {
+        private static final BitSet EMPTY = new BitSet();
+
+        private BitSet[] byFloor = new BitSet[0];
+
+        public void clear() {
+            for (BitSet set : byFloor) {
+                if (set != null) set.clear();
+            }
+        }
+
+        public void add(BuildingConfig.Room room) {
+            int index = room.floor - 1;
+            if (index >= byFloor.length) {
+                BitSet[] grown = new BitSet[room.floor];
+                System.arraycopy(byFloor, 0, grown, 0, byFloor.length);
+                byFloor = grown;
+            }
+            if (byFloor[index] == null) byFloor[index] = new BitSet();
+            byFloor[index].set(room.position);
+        }
+
+        /**
+         * Positions on fire on this floor. Read-only; it changes on the next clear()/add().
+         */
+        public BitSet get(int floorNumber) {
+            int index = floorNumber - 1;
+            if (index < 0 || index >= byFloor.length || byFloor[index] == null) return EMPTY;
+            return byFloor[index];
+        }
+    }
+}
@@ -220,9 +220,9 @@ public class LoginActivity extends AppCompatActivity {
                                              String lastName, String username, String clerkRole) {
         SupabaseApi api = ApiClient.api(this);
 
-        api.getUserByClerkId(clerkUserId).enqueue(new Callback<List<ApiModels.UserRow>>() {
+        api.findUserByClerkId(clerkUserId).enqueue(new Callback<List<ApiModels.UserRef>>() {
             @Override
-            public void onResponse(Call<List<ApiModels.UserRow>> call, Response<List<ApiModels.UserRow>> response) {
+            public void onResponse(Call<List<ApiModels.UserRef>> call, Response<List<ApiModels.UserRef>> response) {
                 if (response.isSuccessful() && response.body() != null && !response.body().isEmpty()) {
                     // User exists - use Clerk role as PRIMARY source
                     Log.d(TAG, "User exists. Using Clerk role: " + clerkRole);
@@ -235,7 +235,7 @@ public class LoginActivity extends AppCompatActivity {
             }
 
             @Override
-            public void onFailure(Call<List<ApiModels.UserRow>> call, Throwable t) {
+            public void onFailure(Call<List<ApiModels.UserRef>> call, Throwable t) {
                 Log.e(TAG, "Failed to check user: " + t.getMessage(), t);
                 runOnUiThread(() -> {
                     progressBar.setVisibility(View.GONE);
@@ -6,22 +6,28 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.chip.Chip;
 
-import java.util.ArrayList;
 import java.util.List;
 
-public class LogsAdapter extends RecyclerView.Adapter<LogsAdapter.VH> {
+public class LogsAdapter extends ListAdapter<ApiModels.LogRow, LogsAdapter.VH> {
 
-    private final List<ApiModels.LogRow> data = new ArrayList<>();
+    public LogsAdapter() {
+        super(RowDiff.LOGS);
+        setHasStableIds(true);
+    }
 
-    // 🔄 Update adapter data
+    // 🔄 Update adapter data; diffed by log id in the background
     public void setData(List<ApiModels.LogRow> items) {
-        data.clear();
-        if (items != null) data.addAll(items);
-        notifyDataSetChanged();
+        submitList(items);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).id;
     }
 
     @NonNull
@@ -34,14 +40,14 @@ public class LogsAdapter extends RecyclerView.Adapter<LogsAdapter.VH> {
 
     @Override
     public void onBindViewHolder(@NonNull VH h, int pos) {
-        ApiModels.LogRow log = data.get(pos);
+        ApiModels.LogRow log = getItem(pos);
 
         // Set main text
         h.txtLogStatus.setText(log.status);
-        h.txtLogTime.setText(log.timestamp);
+        h.txtLogTime.setText(Timestamps.formatOr(log.timestampMs(), true, log.timestamp));
 
         // 🔥 Determine color & label based on status
-        if (log.status != null && log.status.equalsIgnoreCase("fire")) {
+        if (log.isFire()) {
             // FIRE = Critical 🔴
             int fireColor = h.itemView.getContext().getColor(R.color.status_fire);
             h.txtLogStatus.setTextColor(fireColor);
@@ -60,11 +66,6 @@ public class LogsAdapter extends RecyclerView.Adapter<LogsAdapter.VH> {
         }
     }
 
-    @Override
-    public int getItemCount() {
-        return data.size();
-    }
-
     // 🧩 ViewHolder
     static class VH extends RecyclerView.ViewHolder {
         TextView txtLogStatus, txtLogTime;
@@ -2,10 +2,7 @@ package com.example.firewatch;
 
 import android.Manifest;
 import android.annotation.SuppressLint;
-import android.content.BroadcastReceiver;
-import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.net.Uri;
@@ -27,21 +24,13 @@ import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
+import androidx.lifecycle.Lifecycle;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.example.firewatch.databinding.ActivityMainBinding;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -49,26 +38,26 @@ public class MainActivity extends AppCompatActivity {
     private ActivityMainBinding b;
     private UserStatusAdapter statusAdapter;
     private List<BuildingConfig.Floor> building;
-    private Map<String, String> deviceStatusMap;
+    private LocationIndex.FireSets fireSets = new LocationIndex.FireSets();
     private int currentFloor = 1;
     private SharedPreferences prefs;
     private boolean hasActiveFire = false;
     private List<String> currentFireDevices = new ArrayList<>();
+    private boolean connectionFailed = false;
+    // Snapshots are turned into view state off the main thread; one entry per location
+    private final DashboardState.Producer states = new DashboardState.Producer(true, this::applyState);
     private Handler autoRefreshHandler;
     private Runnable autoRefreshRunnable;
-
-    // BroadcastReceiver to listen for fire alerts
-    private BroadcastReceiver fireAlertReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            if ("com.example.firewatch.FIRE_ALERT".equals(intent.getAction())) {
-                Log.d(TAG, "Fire alert broadcast received - refreshing UI");
-                // Fire alert received - refresh UI immediately on main thread
-                new Handler(Looper.getMainLooper()).post(() -> {
-                    fetchAll();
-                });
-            }
-        }
+    // Main thread only; the screen is on whenever this activity is resumed. Paces the
+    // activity's own fetches, which only run while the service is stopped; realtime is
+    // the service's, so this policy never sees it
+    private PollPolicy refreshPolicy;
+
+    // Snapshots the monitoring service has just fetched or been pushed; while it runs
+    // these are the only updates the screen gets
+    private final StatusStream.Listener serviceUpdates = update -> {
+        connectionFailed = false;
+        states.submit(update.rows);
     };
 
     private final ActivityResultLauncher<String> requestPermissionLauncher =
@@ -81,7 +70,6 @@ public class MainActivity extends AppCompatActivity {
                 }
             });
 
-    @SuppressLint("UnspecifiedRegisterReceiverFlag")
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -91,51 +79,61 @@ public class MainActivity extends AppCompatActivity {
         setSupportActionBar(b.topAppBar);
 
         prefs = getSharedPreferences("firewatch_prefs", MODE_PRIVATE);
-        building = BuildingConfig.generateBuilding();
-        deviceStatusMap = new HashMap<>();
-
-        setupFloorSelector();
+        building = BuildingConfig.getBuilding();
+
+        // Floor plan is parsed in the background on first use; the selector follows its floor count
+        BuildingConfig.load(this, floors -> {
+            building = floors;
+            setupFloorSelector();
+            updateFloorMap();
+            // Place fires reported before the plan was loaded
+            states.refresh();
+        });
+        b.floorMapView.setOnRoomClickListener((room, onFire) -> Toast.makeText(this,
+                "Room " + room.id + (onFire ? " - FIRE" : ""), Toast.LENGTH_SHORT).show());
         setupRecyclers();
         setupButtons();
         setupAutoRefresh();
 
-        fetchAll();
+        // Last stored snapshot first, so the map is populated before the network answers
+        StatusRepository.get().loadCached(this, states::submit);
         updateMonitoringButton();
 
         checkNotificationPermission();
 
-        // Register BroadcastReceiver for fire alerts
-        IntentFilter filter = new IntentFilter("com.example.firewatch.FIRE_ALERT");
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-            registerReceiver(fireAlertReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
-        } else {
-            registerReceiver(fireAlertReceiver, filter);
-        }
-        Log.d(TAG, "BroadcastReceiver registered");
+        // Renders the service's latest snapshot now if it has one, and every one after it
+        StatusStream.subscribe(serviceUpdates);
     }
 
     private void setupAutoRefresh() {
         autoRefreshHandler = new Handler(Looper.getMainLooper());
+        refreshPolicy = PollPolicy.fromPrefs(prefs);
         autoRefreshRunnable = new Runnable() {
             @Override
             public void run() {
-                Log.d(TAG, "Auto-refresh triggered");
-                fetchAll();
-                autoRefreshHandler.postDelayed(this, 5000); // Auto refresh every 5 seconds
+                // The service already polls and listens for pushes, and StatusStream hands
+                // each snapshot over; fetch here only when monitoring is off
+                if (!StatusPollerService.isRunning) fetchAll();
+                long delay = refreshPolicy.nextDelayMs();
+                Log.d(TAG, "Auto-refresh triggered, next in " + refreshPolicy.describe());
+                autoRefreshHandler.postDelayed(this, delay);
             }
         };
     }
 
     private void setupFloorSelector() {
         List<String> floorNames = new ArrayList<>();
-        for (int i = 1; i <= 8; i++) {
-            floorNames.add("Floor " + i);
+        for (BuildingConfig.Floor floor : building) {
+            floorNames.add("Floor " + floor.floorNumber);
         }
 
         ArrayAdapter<String> adapter = new ArrayAdapter<>(this,
                 android.R.layout.simple_spinner_item, floorNames);
         adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         b.spinnerFloor.setAdapter(adapter);
+        if (currentFloor >= 1 && currentFloor <= building.size()) {
+            b.spinnerFloor.setSelection(currentFloor - 1);
+        }
 
         b.spinnerFloor.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
@@ -157,7 +155,7 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void setupButtons() {
-        b.btnRefresh.setOnClickListener(v -> fetchAll());
+        b.btnRefresh.setOnClickListener(v -> fetchAll(true));
         b.btnToggleService.setOnClickListener(v -> toggleMonitoring());
         b.btnEmergencyCall.setOnClickListener(v -> makeEmergencyCall());
     }
@@ -178,98 +176,77 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void fetchAll() {
-        Log.d(TAG, "fetchAll() called");
-        SupabaseApi api = ApiClient.api(this);
-
-        api.getStatus().enqueue(new Callback<List<ApiModels.StatusRow>>() {
-            @Override
-            public void onResponse(Call<List<ApiModels.StatusRow>> call, Response<List<ApiModels.StatusRow>> res) {
-                Log.d(TAG, "API response received - success: " + res.isSuccessful());
-
-                if (!res.isSuccessful() || res.body() == null) {
-                    updateUIOffline();
-                    return;
-                }
-
-                LinkedHashMap<String, ApiModels.StatusRow> latest = new LinkedHashMap<>();
-                for (ApiModels.StatusRow row : res.body()) {
-                    if (!latest.containsKey(row.location)) {
-                        latest.put(row.location, row);
-                    }
-                }
-
-                // Check if system is in maintenance mode
-                boolean systemInMaintenance = false;
-                for (ApiModels.StatusRow row : latest.values()) {
-                    if (row.check != null && !row.check) {
-                        systemInMaintenance = true;
-                        break;
-                    }
-                }
-
-                deviceStatusMap.clear();
-                currentFireDevices.clear();
-                List<String> offlineDevices = new ArrayList<>();
-
-                for (ApiModels.StatusRow row : latest.values()) {
-                    if (!row.isSystemActive()) {
-                        deviceStatusMap.put(row.location, "maintenance");
-                    } else {
-                        deviceStatusMap.put(row.location, row.last_status);
-                    }
-
-                    Log.d(TAG, "Device: " + row.location + " Status: " + row.last_status + " Check: " + row.check);
-                }
-
-                statusAdapter.setData(new ArrayList<>(latest.values()));
-
-                String newestTime = "--";
-                for (ApiModels.StatusRow s : latest.values()) {
-                    if (s.isSystemActive() && "fire".equalsIgnoreCase(s.last_status)) {
-                        currentFireDevices.add(s.location);
-                        Log.d(TAG, "Fire detected at: " + s.location);
-                    } else if ("failed".equalsIgnoreCase(s.last_status)) {
-                        offlineDevices.add(s.location);
-                        Log.d(TAG, "Offline device at: " + s.location);
-                    }
-                    if (s.last_updated != null && (newestTime.equals("--") ||
-                            s.last_updated.compareTo(newestTime) > 0)) {
-                        newestTime = s.last_updated;
-                    }
-                }
-
-                hasActiveFire = !currentFireDevices.isEmpty();
-                Log.d(TAG, "hasActiveFire: " + hasActiveFire + ", fire count: " + currentFireDevices.size());
+        fetchAll(false);
+    }
 
-                if (systemInMaintenance) {
-                    updateUIMaintenance();
-                } else {
-                    updateUI(currentFireDevices, offlineDevices, newestTime, latest.size());
-                }
+    /**
+     * @param force skip the shared snapshot cache, e.g. for the refresh button
+     */
+    private void fetchAll(boolean force) {
+        Log.d(TAG, "fetchAll() called, force: " + force);
+        long maxAge = force ? -1 : PollPolicy.maxSnapshotAgeMs(refreshPolicy);
 
-                if (hasActiveFire) {
-                    Integer fireFloor = extractFloorFromDeviceId(currentFireDevices.get(0));
-                    Log.d(TAG, "First fire floor: " + fireFloor + " from location: " + currentFireDevices.get(0));
-                    if (fireFloor != null && fireFloor >= 1 && fireFloor <= 8) {
-                        currentFloor = fireFloor;
-                        b.spinnerFloor.setSelection(fireFloor - 1);
-                        updateFloorMap();
-                    }
-                }
-
-                updateFloorMap();
+        StatusRepository.get().fetch(this, maxAge, new StatusRepository.Listener() {
+            @Override
+            public void onSnapshot(List<ApiModels.StatusRow> rows) {
+                Log.d(TAG, "Status snapshot received - rows: " + rows.size());
+                connectionFailed = false;
+                refreshPolicy.onPollResult(true);
+                states.submit(rows);
             }
 
             @Override
-            public void onFailure(Call<List<ApiModels.StatusRow>> call, Throwable t) {
+            public void onFailure(Throwable t) {
                 Log.e(TAG, "API call failed: " + t.getMessage());
-                hasActiveFire = false;
+                connectionFailed = true;
+                refreshPolicy.onPollResult(false);
+                // Keep showing the last known devices rather than an empty list
+                List<ApiModels.StatusRow> cached = StatusRepository.get().latest();
+                if (cached != null) {
+                    states.submit(cached);
+                } else {
+                    hasActiveFire = false;
+                    statusAdapter.setData(new ArrayList<>());
+                }
                 updateUIOffline();
-                statusAdapter.setData(new ArrayList<>());
             }
         });
     }
 
+    // Main thread: the state is already computed, only views are touched here
+    private void applyState(DashboardState state) {
+        currentFireDevices = state.fires;
+        boolean fireStarted = state.hasActiveFire() && !hasActiveFire;
+        hasActiveFire = state.hasActiveFire();
+        refreshPolicy.onFireState(hasActiveFire);
+        // Switch to the fast refresh now instead of after the current (possibly long) wait
+        if (fireStarted && getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
+            autoRefreshHandler.removeCallbacks(autoRefreshRunnable);
+            autoRefreshHandler.postDelayed(autoRefreshRunnable, refreshPolicy.nextDelayMs());
+        }
+        fireSets = state.fireSets;
+        Log.d(TAG, "hasActiveFire: " + hasActiveFire + ", fire count: " + currentFireDevices.size());
+
+        statusAdapter.setData(state.devices);
+
+        if (state.maintenance) {
+            updateUIMaintenance();
+        } else {
+            updateUI(state.fires, state.offline, state.newestTime, state.devices.size());
+        }
+        if (connectionFailed) updateUIOffline();
+
+        // Jump to a new fire once; later polls leave the chosen floor alone
+        BuildingConfig.Room fireRoom = state.newFireRoom;
+        if (fireRoom != null && fireRoom.floor <= building.size()) {
+            Log.d(TAG, "New fire room: " + fireRoom.id);
+            currentFloor = fireRoom.floor;
+            b.spinnerFloor.setSelection(fireRoom.floor - 1);
+        }
+
+        updateFloorMap();
+    }
+
     private void updateUI(List<String> fires, List<String> offline, String newestTime, int totalDevices) {
         Log.d(TAG, "updateUI called - fires: " + fires.size() + ", offline: " + offline.size());
 
@@ -366,62 +343,7 @@ public class MainActivity extends AppCompatActivity {
         if (currentFloor < 1 || currentFloor > building.size()) return;
 
         BuildingConfig.Floor floor = building.get(currentFloor - 1);
-        Set<String> fireRoomsOnFloor = new HashSet<>();
-
-        for (String location : deviceStatusMap.keySet()) {
-            String status = deviceStatusMap.get(location);
-
-            if ("fire".equalsIgnoreCase(status)) {
-                String roomNumber = extractRoomNumber(location);
-                Integer deviceFloor = extractFloorFromDeviceId(location);
-
-                Log.d(TAG, "Fire location: " + location + " -> Room: " + roomNumber + " Floor: " + deviceFloor);
-
-                if (deviceFloor != null && deviceFloor == currentFloor && roomNumber != null) {
-                    fireRoomsOnFloor.add(roomNumber);
-                    Log.d(TAG, "Added fire room to map: " + roomNumber);
-                }
-            }
-        }
-
-        Log.d(TAG, "Updating floor " + currentFloor + " with " + fireRoomsOnFloor.size() + " fire rooms");
-        b.floorMapView.setFloor(floor, fireRoomsOnFloor);
-    }
-
-    private Integer extractFloorFromDeviceId(String deviceId) {
-        if (deviceId == null || deviceId.isEmpty()) return null;
-        try {
-            if (deviceId.startsWith("STAIRS_")) {
-                String[] parts = deviceId.split("_");
-                if (parts.length >= 3) {
-                    return Integer.parseInt(parts[2]);
-                }
-            }
-            char firstChar = deviceId.charAt(0);
-            if (Character.isDigit(firstChar)) {
-                return Character.getNumericValue(firstChar);
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error extracting floor from: " + deviceId, e);
-        }
-        return null;
-    }
-
-    private String extractRoomNumber(String deviceId) {
-        if (deviceId == null || deviceId.isEmpty()) return null;
-        try {
-            if (deviceId.startsWith("STAIRS_")) {
-                return deviceId;
-            }
-            if (deviceId.contains("-")) {
-                String[] parts = deviceId.split("-");
-                return parts[0].trim();
-            }
-            return deviceId.trim();
-        } catch (Exception e) {
-            Log.e(TAG, "Error extracting room number from: " + deviceId, e);
-            return deviceId;
-        }
+        b.floorMapView.setFloor(floor, fireSets.get(currentFloor));
     }
 
     private void makeEmergencyCall() {
@@ -551,8 +473,7 @@ public class MainActivity extends AppCompatActivity {
     protected void onResume() {
         super.onResume();
         Log.d(TAG, "onResume - starting auto refresh");
-        fetchAll();
-        // Start auto-refresh when activity is visible
+        // Start auto-refresh when activity is visible; its first run fetches straight away
         autoRefreshHandler.post(autoRefreshRunnable);
     }
 
@@ -568,14 +489,9 @@ public class MainActivity extends AppCompatActivity {
     protected void onDestroy() {
         super.onDestroy();
         Log.d(TAG, "onDestroy - cleaning up");
+        states.close();
         // Stop auto-refresh
         autoRefreshHandler.removeCallbacks(autoRefreshRunnable);
-        // Unregister BroadcastReceiver
-        try {
-            unregisterReceiver(fireAlertReceiver);
-            Log.d(TAG, "BroadcastReceiver unregistered");
-        } catch (Exception e) {
-            Log.e(TAG, "Error unregistering receiver: " + e.getMessage());
-        }
+        StatusStream.unsubscribe(serviceUpdates);
     }
 }
\ No newline at end of file
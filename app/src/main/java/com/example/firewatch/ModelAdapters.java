@@ -0,0 +1,182 @@
+package com.example.firewatch;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Hand-written streaming adapters for the models parsed on every poll.
+ *
+ * Gson's default ReflectiveTypeAdapterFactory looks fields up by name and sets
+ * them through reflection for each row; these read the token stream straight
+ * into the fields and resolve last_status / status to a DeviceStatus and the
+ * timestamps to epoch millis while the strings are at hand. Identifiers go
+ * through StringPool. Unknown columns are skipped, so select=* still works.
+ */
+public final class ModelAdapters {
+
+    private static Gson gson;
+
+    private ModelAdapters() {}
+
+    /**
+     * Shared Gson with the adapters registered, for Retrofit and the realtime socket.
+     */
+    public static synchronized Gson gson() {
+        if (gson == null) {
+            gson = register(new GsonBuilder()).create();
+        }
+        return gson;
+    }
+
+    public static GsonBuilder register(GsonBuilder builder) {
+        return builder
+                .registerTypeAdapter(ApiModels.StatusRow.class, new StatusRowAdapter().nullSafe())
+                .registerTypeAdapter(ApiModels.LogRow.class, new LogRowAdapter().nullSafe())
+                .registerTypeAdapter(ApiModels.UserRow.class, new UserRowAdapter().nullSafe());
+    }
+
+    static final class StatusRowAdapter extends TypeAdapter<ApiModels.StatusRow> {
+        @Override
+        public void write(JsonWriter out, ApiModels.StatusRow row) throws IOException {
+            out.beginObject();
+            out.name("esp32_id").value(row.esp32_id);
+            out.name("last_status").value(row.last_status);
+            out.name("last_updated").value(row.last_updated);
+            out.name("location").value(row.location);
+            out.name("block").value(row.block);
+            out.name("check").value(row.check);
+            out.endObject();
+        }
+
+        @Override
+        public ApiModels.StatusRow read(JsonReader in) throws IOException {
+            ApiModels.StatusRow row = new ApiModels.StatusRow();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "esp32_id": row.esp32_id = nextIdentifier(in); break;
+                    case "last_status": row.last_status = nextIdentifier(in); break;
+                    case "last_updated": row.last_updated = nextString(in); break;
+                    case "location": row.location = nextIdentifier(in); break;
+                    case "block": row.block = nextIdentifier(in); break;
+                    case "check": row.check = nextBoolean(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            row.state = DeviceStatus.fromWire(row.last_status);
+            row.lastUpdatedMillis = Timestamps.parse(row.last_updated);
+            row.parsedAtMs = System.currentTimeMillis();
+            return row;
+        }
+    }
+
+    static final class LogRowAdapter extends TypeAdapter<ApiModels.LogRow> {
+        @Override
+        public void write(JsonWriter out, ApiModels.LogRow row) throws IOException {
+            out.beginObject();
+            out.name("id").value(row.id);
+            out.name("esp32_id").value(row.esp32_id);
+            out.name("status").value(row.status);
+            out.name("timestamp").value(row.timestamp);
+            out.name("location").value(row.location);
+            out.name("block").value(row.block);
+            out.endObject();
+        }
+
+        @Override
+        public ApiModels.LogRow read(JsonReader in) throws IOException {
+            ApiModels.LogRow row = new ApiModels.LogRow();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": row.id = nextLong(in); break;
+                    case "esp32_id": row.esp32_id = nextIdentifier(in); break;
+                    case "status": row.status = nextIdentifier(in); break;
+                    case "timestamp": row.timestamp = nextString(in); break;
+                    case "location": row.location = nextIdentifier(in); break;
+                    case "block": row.block = nextIdentifier(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            row.state = DeviceStatus.fromWire(row.status);
+            row.timestampMillis = Timestamps.parse(row.timestamp);
+            return row;
+        }
+    }
+
+    static final class UserRowAdapter extends TypeAdapter<ApiModels.UserRow> {
+        @Override
+        public void write(JsonWriter out, ApiModels.UserRow row) throws IOException {
+            out.beginObject();
+            out.name("id").value(row.id);
+            out.name("clerk_user_id").value(row.clerk_user_id);
+            out.name("email").value(row.email);
+            out.name("username").value(row.username);
+            out.name("first_name").value(row.first_name);
+            out.name("last_name").value(row.last_name);
+            out.name("role").value(row.role);
+            out.name("created_at").value(row.created_at);
+            out.name("updated_at").value(row.updated_at);
+            out.endObject();
+        }
+
+        @Override
+        public ApiModels.UserRow read(JsonReader in) throws IOException {
+            ApiModels.UserRow row = new ApiModels.UserRow();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": row.id = nextString(in); break;
+                    case "clerk_user_id": row.clerk_user_id = nextString(in); break;
+                    case "email": row.email = nextString(in); break;
+                    case "username": row.username = nextString(in); break;
+                    case "first_name": row.first_name = nextString(in); break;
+                    case "last_name": row.last_name = nextString(in); break;
+                    case "role": row.role = nextString(in); break;
+                    case "created_at": row.created_at = nextString(in); break;
+                    case "updated_at": row.updated_at = nextString(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return row;
+        }
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    // Values that repeat across rows and polls share one instance
+    private static String nextIdentifier(JsonReader in) throws IOException {
+        return StringPool.intern(nextString(in));
+    }
+
+    private static Boolean nextBoolean(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextBoolean();
+    }
+
+    private static long nextLong(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextLong();
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.firewatch;
+
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides how long to wait before the next status poll.
+ *
+ * The poller reports what it sees (fires, poll outcomes, screen and realtime
+ * state) and asks for the next delay after every poll. Implementations are
+ * used from a single thread. Picked by the "poll_policy" preference.
+ */
+public interface PollPolicy {
+
+    void onFireState(boolean anyFire);
+
+    void onPollResult(boolean succeeded);
+
+    void onScreen(boolean interactive);
+
+    void onRealtime(boolean subscribed);
+
+    /**
+     * Delay before the next poll; also becomes currentDelayMs()
+     */
+    long nextDelayMs();
+
+    /**
+     * The delay last handed out by nextDelayMs()
+     */
+    long currentDelayMs();
+
+    /**
+     * Current delay and why, for logs and diagnostics, e.g. "1000 ms (fire)"
+     */
+    String describe();
+
+    /**
+     * Oldest shared snapshot worth accepting instead of polling: most of our own period,
+     * so fast polling isn't answered from a cache filled for a slower one
+     */
+    static long maxSnapshotAgeMs(PollPolicy policy) {
+        return Math.min(StatusRepository.DEFAULT_MAX_AGE_MS, policy.currentDelayMs() * 4 / 5);
+    }
+
+    static PollPolicy fromPrefs(SharedPreferences prefs) {
+        if ("fixed".equals(prefs.getString("poll_policy", "adaptive"))) return new Fixed();
+        return new Adaptive();
+    }
+
+    /**
+     * The original schedule: every 5 s, or every minute while realtime pushes arrive
+     */
+    class Fixed implements PollPolicy {
+        private static final long INTERVAL_MS = 5000;
+        private static final long REALTIME_MS = 60_000;
+
+        private boolean realtime;
+        private long current = INTERVAL_MS;
+
+        @Override public void onFireState(boolean anyFire) {}
+        @Override public void onPollResult(boolean succeeded) {}
+        @Override public void onScreen(boolean interactive) {}
+
+        @Override
+        public void onRealtime(boolean subscribed) {
+            realtime = subscribed;
+        }
+
+        @Override
+        public long nextDelayMs() {
+            current = realtime ? REALTIME_MS : INTERVAL_MS;
+            return current;
+        }
+
+        @Override
+        public long currentDelayMs() {
+            return current;
+        }
+
+        @Override
+        public String describe() {
+            return current + " ms (fixed" + (realtime ? ", realtime" : "") + ")";
+        }
+    }
+
+    /**
+     * Fast while anything is burning, slow when idle or unseen, backing off on failures
+     */
+    class Adaptive implements PollPolicy {
+        static final long FIRE_MS = 1000;
+        static final long NORMAL_MS = 5000;
+        static final long QUIET_MS = 30_000;
+        static final long SCREEN_OFF_MS = 60_000;
+        static final long REALTIME_MS = 60_000;
+        static final long MAX_BACKOFF_MS = 120_000;
+        // All safe for this long counts as quiet
+        static final long QUIET_AFTER_MS = 5 * 60_000;
+
+        private final LongSupplier clock;
+        private final Random random;
+        private boolean anyFire;
+        private long safeSince;
+        private int failures;
+        private boolean screenOn = true;
+        private boolean realtime;
+
+        private long current = NORMAL_MS;
+        private String reason = "normal";
+
+        public Adaptive() {
+            this(SystemClock::elapsedRealtime, new Random());
+        }
+
+        // For tests: a fake elapsedRealtime() and a seeded jitter
+        Adaptive(LongSupplier clock, Random random) {
+            this.clock = clock;
+            this.random = random;
+            safeSince = clock.getAsLong();
+        }
+
+        @Override
+        public void onFireState(boolean anyFire) {
+            if (this.anyFire && !anyFire) safeSince = clock.getAsLong();
+            this.anyFire = anyFire;
+        }
+
+        @Override
+        public void onPollResult(boolean succeeded) {
+            failures = succeeded ? 0 : failures + 1;
+        }
+
+        @Override
+        public void onScreen(boolean interactive) {
+            screenOn = interactive;
+        }
+
+        @Override
+        public void onRealtime(boolean subscribed) {
+            realtime = subscribed;
+        }
+
+        @Override
+        public long nextDelayMs() {
+            long delay;
+            if (anyFire) {
+                // Pushes may be lagging; keep checking while an incident is open
+                delay = FIRE_MS;
+                reason = "fire";
+            } else if (realtime) {
+                delay = REALTIME_MS;
+                reason = "realtime";
+            } else if (!screenOn) {
+                delay = SCREEN_OFF_MS;
+                reason = "screen off";
+            } else if (clock.getAsLong() - safeSince >= QUIET_AFTER_MS) {
+                delay = QUIET_MS;
+                reason = "quiet";
+            } else {
+                delay = NORMAL_MS;
+                reason = "normal";
+            }
+
+            if (failures > 0) {
+                // Doubling from the period we'd otherwise use, +-25% so phones that lost the
+                // network together don't retry together; jittered before capping so the cap holds
+                long backoff = delay << Math.min(failures, 6);
+                backoff = backoff * (75 + random.nextInt(51)) / 100;
+                // During a fire it never waits longer than the normal period
+                backoff = Math.min(backoff, anyFire ? NORMAL_MS : MAX_BACKOFF_MS);
+                delay = Math.max(delay, backoff);
+                reason += ", " + failures + " failure(s)";
+            }
+
+            current = delay;
+            return delay;
+        }
+
+        @Override
+        public long currentDelayMs() {
+            return current;
+        }
+
+        @Override
+        public String describe() {
+            return current + " ms (" + reason + ")";
+        }
+    }
+}
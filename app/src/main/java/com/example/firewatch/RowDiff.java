@@ -0,0 +1,106 @@
+package com.example.firewatch;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Item callbacks and stable ids shared by the list adapters.
+ *
+ * Status rows are matched by esp32_id and log rows by id. A poll that brings
+ * back the same values compares equal, so nothing is rebound. When only the
+ * timestamp or the state of a device moved, the change payload says which, so
+ * the adapter can update just those views.
+ */
+final class RowDiff {
+
+    // Change payload bits for status rows; anything else gets a full bind
+    static final int CHANGED_TIME = 1;
+    static final int CHANGED_STATE = 1 << 1;
+
+    private RowDiff() {}
+
+    static final DiffUtil.ItemCallback<ApiModels.StatusRow> STATUS = new DiffUtil.ItemCallback<ApiModels.StatusRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ApiModels.StatusRow a, @NonNull ApiModels.StatusRow b) {
+            return Objects.equals(a.esp32_id, b.esp32_id);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ApiModels.StatusRow a, @NonNull ApiModels.StatusRow b) {
+            return statusChanges(a, b) == 0 && sameLocation(a, b);
+        }
+
+        @Nullable
+        @Override
+        public Object getChangePayload(@NonNull ApiModels.StatusRow a, @NonNull ApiModels.StatusRow b) {
+            // A moved device changes its label text; rebind all of it
+            return sameLocation(a, b) ? Integer.valueOf(statusChanges(a, b)) : null;
+        }
+    };
+
+    static final DiffUtil.ItemCallback<ApiModels.LogRow> LOGS = new DiffUtil.ItemCallback<ApiModels.LogRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ApiModels.LogRow a, @NonNull ApiModels.LogRow b) {
+            return a.id == b.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ApiModels.LogRow a, @NonNull ApiModels.LogRow b) {
+            // Log rows are never edited server side; this only guards against id reuse
+            return a.state() == b.state()
+                    && Objects.equals(a.status, b.status)
+                    && a.timestampMs() == b.timestampMs()
+                    && Objects.equals(a.esp32_id, b.esp32_id)
+                    && Objects.equals(a.location, b.location)
+                    && Objects.equals(a.block, b.block);
+        }
+    };
+
+    private static int statusChanges(ApiModels.StatusRow a, ApiModels.StatusRow b) {
+        int changes = 0;
+        if (a.lastUpdatedMs() != b.lastUpdatedMs() || !Objects.equals(a.last_updated, b.last_updated)) {
+            changes |= CHANGED_TIME;
+        }
+        if (a.state() != b.state() || !Objects.equals(a.last_status, b.last_status)
+                || a.isSystemActive() != b.isSystemActive()) {
+            changes |= CHANGED_STATE;
+        }
+        return changes;
+    }
+
+    private static boolean sameLocation(ApiModels.StatusRow a, ApiModels.StatusRow b) {
+        return Objects.equals(a.location, b.location) && Objects.equals(a.block, b.block);
+    }
+
+    /**
+     * Union of the payload bits, or 0 if any payload asks for a full bind
+     */
+    static int changes(List<Object> payloads) {
+        int changes = 0;
+        for (Object payload : payloads) {
+            if (!(payload instanceof Integer)) return 0;
+            changes |= (Integer) payload;
+        }
+        return changes;
+    }
+
+    /**
+     * Stable RecyclerView item ids for devices, one per adapter so the ids it
+     * hands out go away with the screen. Main thread only, through getItemId().
+     */
+    static final class StableIds {
+        private final DeviceRegistry ids = new DeviceRegistry();
+
+        /**
+         * The device's slot; a row without esp32_id gets a negative id from its
+         * position instead, which can't collide with a slot or NO_ID
+         */
+        long of(ApiModels.StatusRow row, int position) {
+            return row.esp32_id != null ? ids.slotFor(row.esp32_id) : -2L - position;
+        }
+    }
+}
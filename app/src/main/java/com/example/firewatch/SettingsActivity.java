@@ -73,7 +73,7 @@ public class SettingsActivity extends AppCompatActivity {
                     .apply();
 
             // Make ApiClient pick up the new settings immediately
-            ApiClient.reset();
+            ApiClient.onSettingsChanged(this);
 
             toast("Settings saved");
             finish();
@@ -0,0 +1,71 @@
+package com.example.firewatch;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Insertion-ordered set of DeviceRegistry slots.
+ *
+ * A doubly linked list threaded through two int arrays indexed by slot, so
+ * adding, removing and membership are O(1) and, once the arrays cover the
+ * fleet, allocate nothing. Not thread safe.
+ */
+final class SlotList {
+
+    private static final int NONE = DeviceRegistry.NO_SLOT;
+
+    private int[] prev = new int[64];
+    private int[] next = new int[64];
+    private final BitSet members = new BitSet();
+    private int head = NONE;
+    private int tail = NONE;
+    private int size;
+
+    boolean contains(int slot) {
+        return members.get(slot);
+    }
+
+    /**
+     * Appends the slot unless it is already in the list, where it keeps its place
+     */
+    void add(int slot) {
+        if (members.get(slot)) return;
+        if (slot >= prev.length) {
+            int capacity = Math.max(prev.length * 2, slot + 1);
+            prev = Arrays.copyOf(prev, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        members.set(slot);
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE) head = slot; else next[tail] = slot;
+        tail = slot;
+        size++;
+    }
+
+    void remove(int slot) {
+        if (!members.get(slot)) return;
+        members.clear(slot);
+        if (prev[slot] == NONE) head = next[slot]; else next[prev[slot]] = next[slot];
+        if (next[slot] == NONE) tail = prev[slot]; else prev[next[slot]] = prev[slot];
+        size--;
+    }
+
+    /**
+     * Oldest slot, or NO_SLOT if empty
+     */
+    int first() {
+        return head;
+    }
+
+    /**
+     * Slot added after this one, or NO_SLOT
+     */
+    int next(int slot) {
+        return next[slot];
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -6,21 +6,30 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.chip.Chip;
 
-import java.util.ArrayList;
 import java.util.List;
 
-public class StatusAdapter extends RecyclerView.Adapter<StatusAdapter.VH> {
+public class StatusAdapter extends ListAdapter<ApiModels.StatusRow, StatusAdapter.VH> {
 
-    private final List<ApiModels.StatusRow> data = new ArrayList<>();
+    private final RowDiff.StableIds ids = new RowDiff.StableIds();
 
+    public StatusAdapter() {
+        super(RowDiff.STATUS);
+        setHasStableIds(true);
+    }
+
+    // Diffed against the current list in the background; only changed rows are rebound
     public void setData(List<ApiModels.StatusRow> items) {
-        data.clear();
-        if (items != null) data.addAll(items);
-        notifyDataSetChanged();
+        submitList(items);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return ids.of(getItem(position), position);
     }
 
     @NonNull
@@ -31,30 +40,44 @@ public class StatusAdapter extends RecyclerView.Adapter<StatusAdapter.VH> {
         return new VH(v);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull VH h, int pos, @NonNull List<Object> payloads) {
+        int changes = RowDiff.changes(payloads);
+        if (changes == 0) {
+            onBindViewHolder(h, pos);
+            return;
+        }
+        ApiModels.StatusRow row = getItem(pos);
+        if ((changes & RowDiff.CHANGED_TIME) != 0) bindTime(h, row);
+        if ((changes & RowDiff.CHANGED_STATE) != 0) bindState(h, row);
+    }
+
     @Override
     public void onBindViewHolder(@NonNull VH h, int pos) {
-        ApiModels.StatusRow row = data.get(pos);
+        ApiModels.StatusRow row = getItem(pos);
 
         h.txtId.setText(row.esp32_id);
-        h.txtTime.setText("Updated: " + row.last_updated);
+        bindTime(h, row);
+        bindState(h, row);
+    }
+
+    private void bindTime(VH h, ApiModels.StatusRow row) {
+        h.txtTime.setText("Updated: " + Timestamps.formatOr(row.lastUpdatedMs(), false, row.last_updated));
+    }
+
+    private void bindState(VH h, ApiModels.StatusRow row) {
         h.chip.setText(row.last_status);  // ✅ fixed
 
-        int color = row.last_status.equalsIgnoreCase("fire")  // ✅ fixed
+        boolean isFire = row.isFire();
+        int color = isFire
                 ? h.itemView.getContext().getColor(R.color.status_fire)
                 : h.itemView.getContext().getColor(R.color.status_safe);
 
-        h.chip.setChipBackgroundColorResource(
-                row.last_status.equalsIgnoreCase("fire")  // ✅ fixed
-                        ? R.color.status_fire : R.color.status_safe);
+        h.chip.setChipBackgroundColorResource(isFire ? R.color.status_fire : R.color.status_safe);
 
         h.statusIndicator.setBackgroundColor(color);
     }
 
-    @Override
-    public int getItemCount() {
-        return data.size();
-    }
-
     static class VH extends RecyclerView.ViewHolder {
         TextView txtId, txtTime;
         View statusIndicator;
@@ -68,4 +91,4 @@ public class StatusAdapter extends RecyclerView.Adapter<StatusAdapter.VH> {
             statusIndicator = v.findViewById(R.id.statusIndicator);
         }
     }
-}
\ No newline at end of file
+}
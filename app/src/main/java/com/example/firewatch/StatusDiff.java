@@ -0,0 +1,217 @@
+package com.example.firewatch;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Turns successive status snapshots into per-device transitions.
+ *
+ * Each consumer (service, dashboard) keeps its own instance and feeds it every
+ * snapshot it receives; update() compares against the previous one in a
+ * single pass and reports only what changed. The previous snapshot is held
+ * in a DeviceRegistry rather than as rows, and the burning and offline
+ * devices as ordered slot lists, so a large fleet costs a few dozen bytes per
+ * device between polls, even when all of it is offline. The first
+ * snapshot is compared against an empty baseline, so devices already burning
+ * or offline come out as FIRE_STARTED / WENT_OFFLINE.
+ *
+ * Not thread safe; call from one thread.
+ */
+public class StatusDiff {
+
+    public enum Kind {
+        FIRE_STARTED,
+        FIRE_CLEARED,
+        WENT_OFFLINE,
+        CAME_BACK,
+        ENTERED_MAINTENANCE,
+        LEFT_MAINTENANCE,
+        RELOCATED;
+
+        public boolean isFire() {
+            return this == FIRE_STARTED || this == FIRE_CLEARED;
+        }
+    }
+
+    public static class Transition {
+        public final Kind kind;
+        public final ApiModels.StatusRow row;
+        // Display name before the move; only set for RELOCATED
+        @Nullable public final String from;
+
+        Transition(Kind kind, ApiModels.StatusRow row, @Nullable String from) {
+            this.kind = kind;
+            this.row = row;
+            this.from = from;
+        }
+
+        @Override
+        public String toString() {
+            if (from != null) {
+                return kind + " " + row.esp32_id + ": " + from + " -> " + row.getDisplayName();
+            }
+            return kind + " " + row.esp32_id + " at " + row.getDisplayName();
+        }
+    }
+
+    // Previous snapshot, one primitive slot per device
+    private final DeviceRegistry registry = new DeviceRegistry();
+    // Slots seen in the snapshot being folded in; reused
+    private final BitSet seen = new BitSet();
+    // Insertion ordered so the first fire reported stays first
+    private final SlotList fires = new SlotList();
+    private final SlotList offline = new SlotList();
+    private int maintenanceCount;
+
+    /**
+     * Folds in the next snapshot and returns what changed since the last one.
+     * Duplicate esp32_ids keep their first row, matching the newest-first order
+     * snapshots arrive in.
+     */
+    public List<Transition> update(List<ApiModels.StatusRow> rows) {
+        List<Transition> out = new ArrayList<>();
+        seen.clear();
+        int maintenance = 0;
+
+        for (ApiModels.StatusRow row : rows) {
+            if (row.esp32_id == null) continue;
+            int slot = registry.slotOf(row.esp32_id);
+            if (slot != DeviceRegistry.NO_SLOT && seen.get(slot)) continue;
+
+            boolean known = slot != DeviceRegistry.NO_SLOT && registry.isPresent(slot);
+            DeviceStatus was = known ? registry.status(slot) : DeviceStatus.UNKNOWN;
+            boolean wasPaused = known && registry.inMaintenance(slot);
+
+            DeviceStatus state = row.state();
+            boolean fire = state == DeviceStatus.FIRE;
+            boolean failed = state == DeviceStatus.FAILED;
+            boolean paused = inMaintenance(row);
+            if (paused) maintenance++;
+
+            if (fire != (was == DeviceStatus.FIRE)) {
+                out.add(new Transition(fire ? Kind.FIRE_STARTED : Kind.FIRE_CLEARED, row, null));
+            }
+            if (failed != (was == DeviceStatus.FAILED)) {
+                out.add(new Transition(failed ? Kind.WENT_OFFLINE : Kind.CAME_BACK, row, null));
+            }
+            if (paused != wasPaused) {
+                out.add(new Transition(paused ? Kind.ENTERED_MAINTENANCE : Kind.LEFT_MAINTENANCE, row, null));
+            }
+            if (known && (!Objects.equals(registry.location(slot), row.location)
+                    || !Objects.equals(registry.block(slot), row.block))) {
+                String from = ApiModels.StatusRow.displayName(
+                        registry.location(slot), registry.block(slot), row.esp32_id);
+                out.add(new Transition(Kind.RELOCATED, row, from));
+            }
+
+            slot = registry.put(row.esp32_id, state, row.lastUpdatedMs(), paused, row.location, row.block);
+            seen.set(slot);
+
+            if (fire) fires.add(slot); else fires.remove(slot);
+            if (failed) offline.add(slot); else offline.remove(slot);
+        }
+
+        // Present before but not now: deleted. Only a fire going away is worth reporting.
+        for (int slot = registry.nextPresent(0); slot != DeviceRegistry.NO_SLOT; slot = registry.nextPresent(slot + 1)) {
+            if (seen.get(slot)) continue;
+            if (fires.contains(slot)) out.add(new Transition(Kind.FIRE_CLEARED, rowOf(slot), null));
+            fires.remove(slot);
+            offline.remove(slot);
+            registry.remove(slot);
+        }
+
+        maintenanceCount = maintenance;
+        return out;
+    }
+
+    // Switched off from the admin screen; a missing check column is not maintenance
+    private static boolean inMaintenance(ApiModels.StatusRow row) {
+        return row.check != null && !row.check;
+    }
+
+    // The device as the registry last saw it; check only records whether it was switched off
+    private ApiModels.StatusRow rowOf(int slot) {
+        ApiModels.StatusRow row = new ApiModels.StatusRow();
+        row.esp32_id = registry.id(slot);
+        row.state = registry.status(slot);
+        row.last_status = row.state.wire();
+        row.lastUpdatedMillis = registry.lastUpdatedMs(slot);
+        row.location = registry.location(slot);
+        row.block = registry.block(slot);
+        row.check = !registry.inMaintenance(slot);
+        return row;
+    }
+
+    /**
+     * Devices currently reporting fire, in the order they started. Rebuilt from the
+     * registry on each call; prefer firstFire() where the slot is enough.
+     */
+    public List<ApiModels.StatusRow> fires() {
+        return rowsOf(fires);
+    }
+
+    private List<ApiModels.StatusRow> rowsOf(SlotList slots) {
+        List<ApiModels.StatusRow> out = new ArrayList<>(slots.size());
+        for (int slot = slots.first(); slot != DeviceRegistry.NO_SLOT; slot = slots.next(slot)) {
+            out.add(rowOf(slot));
+        }
+        return out;
+    }
+
+    public boolean hasFire() {
+        return fires.size() > 0;
+    }
+
+    /**
+     * Slot of the device whose fire started first, or DeviceRegistry.NO_SLOT; continue with nextFire()
+     */
+    public int firstFire() {
+        return fires.first();
+    }
+
+    public int nextFire(int slot) {
+        return fires.next(slot);
+    }
+
+    /**
+     * Slot of the device that went offline first, or DeviceRegistry.NO_SLOT; continue with nextOffline()
+     */
+    public int firstOffline() {
+        return offline.first();
+    }
+
+    public int nextOffline(int slot) {
+        return offline.next(slot);
+    }
+
+    public String id(int slot) {
+        return registry.id(slot);
+    }
+
+    public String location(int slot) {
+        return registry.location(slot);
+    }
+
+    public String block(int slot) {
+        return registry.block(slot);
+    }
+
+    /**
+     * Same as StatusRow.getDisplayName() for the device's last row
+     */
+    public String displayName(int slot) {
+        return ApiModels.StatusRow.displayName(registry.location(slot), registry.block(slot), registry.id(slot));
+    }
+
+    public int maintenanceCount() {
+        return maintenanceCount;
+    }
+
+    public int size() {
+        return registry.size();
+    }
+}
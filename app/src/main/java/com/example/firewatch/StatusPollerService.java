@@ -5,36 +5,57 @@ import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.graphics.Color;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
+import android.os.PowerManager;
+import android.util.Log;
 
 import androidx.annotation.Nullable;
 import androidx.core.app.NotificationCompat;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
 
 public class StatusPollerService extends Service {
 
     public static boolean isRunning = false;
+    private static final String TAG = "StatusPollerService";
     private static final String CHANNEL_ID = "firewatch_monitoring";
     private static final String ALERT_CHANNEL_ID = "firewatch_alerts";
     private static final int FOREGROUND_NOTIFICATION_ID = 999;
     private static final int FIRE_NOTIFICATION_ID = 1001;
 
-    private final Handler handler = new Handler();
+    // A poll not answered within most of the current period is abandoned; its late response is dropped.
+    // Never below the floor, so a 1 s fire period still leaves a slow network time to answer.
+    private static final long POLL_DEADLINE_MAX_MS = 4000;
+    private static final long POLL_DEADLINE_FLOOR_MS = 1000;
+    private static final long NO_POLL = -1;
+
+    // Polling, pushes and alerting all run on this thread, one poll in flight at a time
+    private HandlerThread pollThread;
+    private Handler handler;
     private Runnable pollRunnable;
-    private Set<String> lastFireDevices = new HashSet<>();
+
+    // Poll thread only. Every poll and every pushed change takes the next StatusStream sequence number;
+    // a snapshot is applied only if nothing newer has been, so a slow poll can't undo a push.
+    private long appliedSeq;
+    private long inFlightSeq = NO_POLL;
+    // Poll thread only; decides the gap between polls
+    private PollPolicy policy;
+    // Last policy decision, for diagnostics
+    private static volatile String pollSchedule = "not running";
+    private final StatusDiff diff = new StatusDiff();
+    // Poll thread only; false until the first snapshot has been diffed against the empty baseline
+    private boolean diffPrimed;
+    private FireAlert alert;
+    private StatusRealtime realtime;
     private SharedPreferences prefs;
 
     @Override
@@ -44,19 +65,108 @@ public class StatusPollerService extends Service {
         prefs = getSharedPreferences("firewatch_prefs", MODE_PRIVATE);
 
         createNotificationChannels();
+        alert = new FireAlert(this, ALERT_CHANNEL_ID, FIRE_NOTIFICATION_ID);
         startForeground(FOREGROUND_NOTIFICATION_ID, createForegroundNotification());
 
-        pollRunnable = new Runnable() {
-            @Override
-            public void run() {
-                // Check if monitoring is enabled
-                if (prefs.getBoolean("monitoring_enabled", true)) {
-                    pollOnce();
-                }
-                handler.postDelayed(this, 5000); // Poll every 5 seconds
+        pollThread = new HandlerThread("StatusPoller");
+        pollThread.start();
+        handler = new Handler(pollThread.getLooper());
+
+        policy = PollPolicy.fromPrefs(prefs);
+        policy.onScreen(((PowerManager) getSystemService(Context.POWER_SERVICE)).isInteractive());
+        IntentFilter screen = new IntentFilter(Intent.ACTION_SCREEN_ON);
+        screen.addAction(Intent.ACTION_SCREEN_OFF);
+        // Delivered on the poll thread, like everything else the policy sees
+        registerReceiver(screenReceiver, screen, null, handler);
+
+        pollRunnable = () -> {
+            // Check if monitoring is enabled
+            if (prefs.getBoolean("monitoring_enabled", true)) {
+                pollOnce();
+            } else {
+                scheduleNextPoll();
             }
         };
         handler.post(pollRunnable);
+
+        startRealtime();
+    }
+
+    private void startRealtime() {
+        realtime = new StatusRealtime(ApiClient.realtimeClient(), ApiClient.baseUrl(this), ApiClient.apiKey(this),
+                new StatusRealtime.Listener() {
+                    @Override
+                    public void onSubscribed() {
+                        // Catch up on anything missed while disconnected, then relax polling
+                        handler.post(() -> {
+                            StatusRepository.get().invalidate();
+                            restartPolling();
+                        });
+                    }
+
+                    @Override
+                    public void onStatusChanged(ApiModels.StatusRow row) {
+                        handler.post(() -> {
+                            List<ApiModels.StatusRow> rows = StatusRepository.get().applyChange(row);
+                            if (rows != null && prefs.getBoolean("monitoring_enabled", true)) {
+                                applySnapshot(StatusStream.nextSeq(), rows);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onStatusDeleted(String esp32Id) {
+                        handler.post(() -> {
+                            List<ApiModels.StatusRow> rows = StatusRepository.get().applyDelete(esp32Id);
+                            if (rows != null && prefs.getBoolean("monitoring_enabled", true)) {
+                                applySnapshot(StatusStream.nextSeq(), rows);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onDisconnected(@Nullable Throwable t) {
+                        Log.w(TAG, "Realtime disconnected, falling back to polling", t);
+                        handler.post(() -> restartPolling());
+                    }
+                });
+        realtime.start();
+    }
+
+    private final BroadcastReceiver screenReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            boolean on = Intent.ACTION_SCREEN_ON.equals(intent.getAction());
+            policy.onScreen(on);
+            // Someone is looking again: bring the status up to date now rather than after the slow period
+            if (on) restartPolling();
+        }
+    };
+
+    /**
+     * Current poll delay and the reason for it, e.g. "1000 ms (fire)"
+     */
+    public static String pollSchedule() {
+        return pollSchedule;
+    }
+
+    private void restartPolling() {
+        handler.removeCallbacks(pollRunnable);
+        // A poll still in flight schedules the next one when it finishes
+        if (inFlightSeq == NO_POLL) handler.post(pollRunnable);
+    }
+
+    // The period starts when the last poll ended; the policy picks its length
+    private void scheduleNextPoll() {
+        handler.removeCallbacks(pollRunnable);
+        if (inFlightSeq != NO_POLL) return;
+        policy.onRealtime(realtime != null && realtime.isSubscribed());
+        long delay = policy.nextDelayMs();
+        StatusRepository.get().setPollPeriodMs(delay);
+        String schedule = policy.describe();
+        if (!schedule.equals(pollSchedule)) Log.i(TAG, "Poll schedule: " + schedule);
+        pollSchedule = schedule;
+        handler.postDelayed(pollRunnable, delay);
     }
 
     private void createNotificationChannels() {
@@ -104,119 +214,111 @@ public class StatusPollerService extends Service {
     }
 
     private void pollOnce() {
-        SupabaseApi api = ApiClient.api(this);
+        long seq = StatusStream.nextSeq();
+        inFlightSeq = seq;
+        Runnable deadline = () -> {
+            if (inFlightSeq != seq) return;
+            Log.w(TAG, "Poll " + seq + " missed its deadline");
+            inFlightSeq = NO_POLL;
+            policy.onPollResult(false);
+            scheduleNextPoll();
+        };
+        handler.postDelayed(deadline, pollDeadlineMs());
 
-        api.getStatus().enqueue(new Callback<List<ApiModels.StatusRow>>() {
+        // Shares the request with any dashboard polling in the same cycle; answers come back on the main thread
+        StatusRepository.get().fetch(this, PollPolicy.maxSnapshotAgeMs(policy), new StatusRepository.Listener() {
             @Override
-            public void onResponse(Call<List<ApiModels.StatusRow>> call, Response<List<ApiModels.StatusRow>> response) {
-                if (!response.isSuccessful() || response.body() == null) return;
-
-                Set<String> currentFireDevices = new HashSet<>();
-                List<String> fireLocationsList = new ArrayList<>();
-
-                for (ApiModels.StatusRow row : response.body()) {
-                    if ("fire".equalsIgnoreCase(row.last_status)) {
-                        currentFireDevices.add(row.esp32_id);
-                        fireLocationsList.add(row.getDisplayName());
-                    }
-                }
-
-                // Send alert if old fire or new deevices
-                if (!currentFireDevices.isEmpty()) {
-                    // Check if this is a new fire or old
-                    boolean isNewFire = !currentFireDevices.equals(lastFireDevices);
-
-                    if (isNewFire || !lastFireDevices.isEmpty()) {
-                        sendPersistentFireAlert(fireLocationsList, currentFireDevices.size());
-                        // Broadcast to MainActivity to update UI
-                        sendFireAlertBroadcast();
-                    }
-                } else {
-                    // Clear fire notification if all clear
-                    if (!lastFireDevices.isEmpty()) {
-                        clearFireNotification();
-                        // Broadcast to MainActivity to update UI
-                        sendFireAlertBroadcast();
-                    }
-                }
-
-                lastFireDevices = currentFireDevices;
+            public void onSnapshot(List<ApiModels.StatusRow> rows) {
+                handler.post(() -> finishPoll(seq, deadline, rows));
             }
 
             @Override
-            public void onFailure(Call<List<ApiModels.StatusRow>> call, Throwable t) {
+            public void onFailure(Throwable t) {
                 // Connection failed - keep trying
+                handler.post(() -> finishPoll(seq, deadline, null));
             }
         });
     }
 
-    private void sendFireAlertBroadcast() {
-        Intent intent = new Intent("com.example.firewatch.FIRE_ALERT");
-        sendBroadcast(intent);
+    private long pollDeadlineMs() {
+        long deadline = Math.min(POLL_DEADLINE_MAX_MS, policy.currentDelayMs() * 4 / 5);
+        return Math.max(POLL_DEADLINE_FLOOR_MS, deadline);
     }
 
-    private void sendPersistentFireAlert(List<String> locations, int count) {
-        // Check if notifications are allowed
-        if (androidx.core.content.ContextCompat.checkSelfPermission(
-                this, android.Manifest.permission.POST_NOTIFICATIONS)
-                != android.content.pm.PackageManager.PERMISSION_GRANTED) {
+    private void finishPoll(long seq, Runnable deadline, @Nullable List<ApiModels.StatusRow> rows) {
+        if (seq != inFlightSeq) {
+            Log.d(TAG, "Dropping poll " + seq + " answered after its deadline");
             return;
         }
+        inFlightSeq = NO_POLL;
+        handler.removeCallbacks(deadline);
+        policy.onPollResult(rows != null);
+        if (rows != null) applySnapshot(seq, rows);
+        scheduleNextPoll();
+    }
 
-        String title = "🔥 FIRE DETECTED!";
-        String text;
-
-        if (count == 1 && !locations.isEmpty()) {
-            text = "Fire alert at " + locations.get(0);
-        } else {
-            text = "Fire detected at " + count + " location(s)";
+    private void applySnapshot(long seq, List<ApiModels.StatusRow> rows) {
+        if (seq < appliedSeq) {
+            Log.d(TAG, "Dropping snapshot " + seq + ", already applied " + appliedSeq);
+            return;
         }
-
-        // Create intent to open app
-        Intent intent = new Intent(this, MainActivity.class);
-        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-        PendingIntent pendingIntent = PendingIntent.getActivity(
-                this, 0, intent, PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT
-        );
-
-        // Create emergency call action
-        Intent callIntent = new Intent(Intent.ACTION_DIAL);
-        callIntent.setData(android.net.Uri.parse("tel:101"));
-        PendingIntent callPendingIntent = PendingIntent.getActivity(
-                this, 1, callIntent, PendingIntent.FLAG_IMMUTABLE
-        );
-
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, ALERT_CHANNEL_ID)
-                .setSmallIcon(android.R.drawable.stat_notify_error)
-                .setContentTitle(title)
-                .setContentText(text)
-                .setStyle(new NotificationCompat.BigTextStyle()
-                        .bigText(text + "\n\nTap to view details or call emergency services."))
-                .setPriority(NotificationCompat.PRIORITY_MAX)
-                .setCategory(NotificationCompat.CATEGORY_ALARM)
-                .setOngoing(true) // Make it persistent
-                .setAutoCancel(false) // Don't dismiss on tap
-                .setContentIntent(pendingIntent)
-                .addAction(android.R.drawable.ic_menu_call, "Call 101", callPendingIntent)
-                .setColor(Color.RED)
-                .setColorized(true)
-                .setVibrate(new long[]{0, 400, 200, 400})
-                .setLights(Color.RED, 1000, 1000);
-
-        NotificationManager nm = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-        nm.notify(FIRE_NOTIFICATION_ID, builder.build());
+        appliedSeq = seq;
+        handleSnapshot(seq, rows);
     }
 
-    private void clearFireNotification() {
-        NotificationManager nm = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-        nm.cancel(FIRE_NOTIFICATION_ID);
+    // Fire detection shared by polled and pushed snapshots
+    private void handleSnapshot(long seq, List<ApiModels.StatusRow> rows) {
+        List<StatusDiff.Transition> transitions = diff.update(rows);
+        // The first snapshot reports every fire already burning as started; none of them is news
+        boolean baseline = !diffPrimed;
+        diffPrimed = true;
+        // Open screens render from this; they don't fetch again
+        StatusStream.publish(new StatusStream.Update(seq, rows, transitions));
+
+        boolean firesChanged = false;
+        for (StatusDiff.Transition t : transitions) {
+            Log.i(TAG, t.toString());
+            // A burning device that moved changes the text of the alert
+            if (t.kind.isFire() || (t.kind == StatusDiff.Kind.RELOCATED && t.row.isFire())) {
+                firesChanged = true;
+            }
+        }
+        if (firesChanged) {
+            policy.onFireState(!diff.fires().isEmpty());
+            // A pushed fire shouldn't wait out a slow period before fast polling starts
+            scheduleNextPoll();
+        } else if (!alert.pending()) {
+            // Nothing fire-related happened; the alert, if any, stays as it is. A pending
+            // alert is retried instead, in case notifications have been allowed since.
+            return;
+        }
+
+        List<String> locations = new ArrayList<>();
+        for (ApiModels.StatusRow row : diff.fires()) {
+            locations.add(row.getDisplayName());
+        }
+        // Touches the notification only if the set of names differs from what it shows
+        alert.update(locations);
+
+        if (baseline) return;
+        long notifiedAt = alert.notifiedAt();
+        for (StatusDiff.Transition t : transitions) {
+            if (t.kind != StatusDiff.Kind.FIRE_STARTED) continue;
+            AlertLatency.record(t.row.getDisplayName(), t.row.lastUpdatedMs(),
+                    t.row.receivedAtMs, t.row.parsedAtMs, notifiedAt);
+        }
     }
 
     @Override
     public void onDestroy() {
         isRunning = false;
-        handler.removeCallbacks(pollRunnable);
-        clearFireNotification();
+        handler.removeCallbacksAndMessages(null);
+        unregisterReceiver(screenReceiver);
+        pollThread.quitSafely();
+        pollSchedule = "not running";
+        if (realtime != null) realtime.stop();
+        alert.close();
+        StatusStream.reset();
         super.onDestroy();
     }
 
@@ -0,0 +1,284 @@
+package com.example.firewatch;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+
+/**
+ * Push channel for the status table over Supabase Realtime.
+ *
+ * Speaks the Phoenix websocket protocol (vsn 1.0.0): joins a postgres_changes
+ * channel on public.status, sends heartbeats, and reconnects with backoff
+ * whenever the socket drops or a heartbeat goes unanswered. Every reconnect
+ * re-joins the channel, and onSubscribed() fires again so the owner can do a
+ * full resync for anything missed while offline.
+ *
+ * Has no Android dependencies so it can be driven against a local websocket
+ * (e.g. MockWebServer) by passing that server's URL as the base URL.
+ */
+public class StatusRealtime {
+
+    public interface Listener {
+        void onSubscribed();
+        void onStatusChanged(ApiModels.StatusRow row);
+        void onStatusDeleted(String esp32Id);
+        void onDisconnected(@Nullable Throwable t);
+    }
+
+    static final String TOPIC = "realtime:public:status";
+    private static final long HEARTBEAT_INTERVAL_MS = 25_000;
+    private static final long[] RECONNECT_BACKOFF_MS = {1_000, 2_000, 5_000, 10_000, 30_000};
+
+    private final OkHttpClient client;
+    private final HttpUrl socketUrl;
+    private final String apiKey;
+    private final Listener listener;
+    private final long heartbeatIntervalMs;
+    private final long[] reconnectBackoffMs;
+    private final Gson gson = ModelAdapters.gson();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private WebSocket socket;
+    private ScheduledFuture<?> heartbeat;
+    private ScheduledFuture<?> reconnect;
+    private int ref;
+    private String pendingHeartbeatRef;
+    private int attempt;
+    private boolean running;
+    private boolean subscribed;
+
+    public StatusRealtime(OkHttpClient client, String baseUrl, String apiKey, Listener listener) {
+        this(client, baseUrl, apiKey, listener, HEARTBEAT_INTERVAL_MS, RECONNECT_BACKOFF_MS);
+    }
+
+    // For tests: shorter timers
+    StatusRealtime(OkHttpClient client, String baseUrl, String apiKey, Listener listener,
+                   long heartbeatIntervalMs, long[] reconnectBackoffMs) {
+        this.client = client;
+        this.socketUrl = HttpUrl.get(baseUrl).newBuilder()
+                .addPathSegments("realtime/v1/websocket")
+                .addQueryParameter("apikey", apiKey)
+                .addQueryParameter("vsn", "1.0.0")
+                .build();
+        this.apiKey = apiKey;
+        this.listener = listener;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        this.reconnectBackoffMs = reconnectBackoffMs;
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        attempt = 0;
+        connect();
+    }
+
+    /**
+     * Closes the socket for good. An instance cannot be restarted after this.
+     */
+    public synchronized void stop() {
+        running = false;
+        cancelTimers();
+        if (socket != null) {
+            socket.close(1000, "stopped");
+            socket = null;
+        }
+        subscribed = false;
+        scheduler.shutdownNow();
+    }
+
+    public synchronized boolean isSubscribed() {
+        return subscribed;
+    }
+
+    private synchronized void connect() {
+        if (!running) return;
+        Request request = new Request.Builder().url(socketUrl).build();
+        socket = client.newWebSocket(request, new SocketListener());
+    }
+
+    private synchronized void join(WebSocket ws) {
+        JsonObject change = new JsonObject();
+        change.addProperty("event", "*");
+        change.addProperty("schema", "public");
+        change.addProperty("table", "status");
+        JsonArray changes = new JsonArray();
+        changes.add(change);
+
+        JsonObject config = new JsonObject();
+        config.add("postgres_changes", changes);
+
+        JsonObject payload = new JsonObject();
+        payload.add("config", config);
+        payload.addProperty("access_token", apiKey);
+
+        ws.send(message(TOPIC, "phx_join", payload));
+
+        heartbeat = scheduler.scheduleWithFixedDelay(this::sendHeartbeat,
+                heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void sendHeartbeat() {
+        if (socket == null) return;
+        if (pendingHeartbeatRef != null) {
+            // Previous heartbeat never answered, the connection is dead even if TCP hasn't noticed
+            socket.cancel();
+            return;
+        }
+        String msg = message("phoenix", "heartbeat", new JsonObject());
+        pendingHeartbeatRef = String.valueOf(ref);
+        socket.send(msg);
+    }
+
+    private String message(String topic, String event, JsonObject payload) {
+        JsonObject msg = new JsonObject();
+        msg.addProperty("topic", topic);
+        msg.addProperty("event", event);
+        msg.add("payload", payload);
+        msg.addProperty("ref", String.valueOf(++ref));
+        return msg.toString();
+    }
+
+    private void handleMessage(String text) {
+        long receivedAt = System.currentTimeMillis();
+        JsonObject msg;
+        try {
+            msg = JsonParser.parseString(text).getAsJsonObject();
+        } catch (RuntimeException e) {
+            return;
+        }
+
+        String event = string(msg, "event");
+        String topic = string(msg, "topic");
+        JsonObject payload = msg.has("payload") && msg.get("payload").isJsonObject()
+                ? msg.getAsJsonObject("payload") : new JsonObject();
+
+        if ("phx_reply".equals(event)) {
+            if ("phoenix".equals(topic)) {
+                synchronized (this) {
+                    if (pendingHeartbeatRef != null && pendingHeartbeatRef.equals(string(msg, "ref"))) {
+                        pendingHeartbeatRef = null;
+                    }
+                }
+            } else if (TOPIC.equals(topic) && "ok".equals(string(payload, "status"))) {
+                boolean first;
+                synchronized (this) {
+                    first = !subscribed;
+                    subscribed = true;
+                    attempt = 0;
+                }
+                if (first) listener.onSubscribed();
+            } else if (TOPIC.equals(topic)) {
+                // Join rejected, drop the socket and let backoff retry
+                synchronized (this) {
+                    if (socket != null) socket.cancel();
+                }
+            }
+        } else if ("postgres_changes".equals(event) && payload.has("data")) {
+            handleChange(payload.getAsJsonObject("data"), receivedAt);
+        } else if ("phx_error".equals(event) || "phx_close".equals(event)) {
+            synchronized (this) {
+                if (socket != null) socket.cancel();
+            }
+        }
+    }
+
+    private void handleChange(JsonObject data, long receivedAt) {
+        String type = string(data, "type");
+        if ("DELETE".equals(type)) {
+            JsonElement old = data.get("old_record");
+            if (old != null && old.isJsonObject()) {
+                String id = string(old.getAsJsonObject(), "esp32_id");
+                if (id != null) listener.onStatusDeleted(id);
+            }
+            return;
+        }
+
+        JsonElement record = data.get("record");
+        if (record == null || !record.isJsonObject()) return;
+        ApiModels.StatusRow row = gson.fromJson(record, ApiModels.StatusRow.class);
+        if (row != null && row.esp32_id != null) {
+            row.receivedAtMs = receivedAt;
+            listener.onStatusChanged(row);
+        }
+    }
+
+    private void onSocketClosed(WebSocket ws, @Nullable Throwable t) {
+        boolean notify;
+        synchronized (this) {
+            if (ws != socket) return; // stale socket from an earlier attempt
+            socket = null;
+            notify = subscribed;
+            subscribed = false;
+            pendingHeartbeatRef = null;
+            cancelTimers();
+            if (running && !scheduler.isShutdown()) {
+                long delay = reconnectBackoffMs[Math.min(attempt, reconnectBackoffMs.length - 1)];
+                attempt++;
+                reconnect = scheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (notify || t != null) listener.onDisconnected(t);
+    }
+
+    private void cancelTimers() {
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+            heartbeat = null;
+        }
+        if (reconnect != null) {
+            reconnect.cancel(false);
+            reconnect = null;
+        }
+    }
+
+    @Nullable
+    private static String string(JsonObject obj, String key) {
+        JsonElement e = obj.get(key);
+        return e != null && e.isJsonPrimitive() ? e.getAsString() : null;
+    }
+
+    private class SocketListener extends WebSocketListener {
+        @Override
+        public void onOpen(@NonNull WebSocket webSocket, @NonNull Response response) {
+            join(webSocket);
+        }
+
+        @Override
+        public void onMessage(@NonNull WebSocket webSocket, @NonNull String text) {
+            handleMessage(text);
+        }
+
+        @Override
+        public void onClosing(@NonNull WebSocket webSocket, int code, @NonNull String reason) {
+            webSocket.close(1000, null);
+        }
+
+        @Override
+        public void onClosed(@NonNull WebSocket webSocket, int code, @NonNull String reason) {
+            onSocketClosed(webSocket, null);
+        }
+
+        @Override
+        public void onFailure(@NonNull WebSocket webSocket, @NonNull Throwable t, @Nullable Response response) {
+            onSocketClosed(webSocket, t);
+        }
+    }
+}
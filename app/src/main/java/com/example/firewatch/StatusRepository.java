@@ -0,0 +1,248 @@
+package com.example.firewatch;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Process-wide source of the status snapshot.
+ *
+ * The poller service and every dashboard go through here instead of calling
+ * getStatus() themselves. Concurrent requests are coalesced into one in-flight
+ * sync, and callers that can live with a snapshot younger than maxAgeMs are
+ * answered from memory without touching the network.
+ *
+ * Every snapshot is written through to LocalStore, and loadCached() serves the
+ * stored copy so screens can render before (or without) the network.
+ */
+public class StatusRepository {
+
+    private static final String TAG = "StatusRepository";
+
+    // A little under the 5 s poll period so two pollers share one request per cycle
+    public static final long DEFAULT_MAX_AGE_MS = 4000;
+
+    public interface Listener {
+        void onSnapshot(List<ApiModels.StatusRow> rows);
+        void onFailure(Throwable t);
+    }
+
+    public interface CacheListener {
+        void onCached(List<ApiModels.StatusRow> rows);
+    }
+
+    private static StatusRepository instance;
+
+    public static synchronized StatusRepository get() {
+        if (instance == null) {
+            instance = new StatusRepository();
+        }
+        return instance;
+    }
+
+    private final StatusSync sync = new StatusSync();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> waiters = new ArrayList<>();
+    private LocalStore store;
+    private List<ApiModels.StatusRow> latest;
+    private long latestAt;
+    private boolean inFlight;
+    // Bumped by invalidate(); a request that started under an older value is repeated
+    private long generation;
+
+    private StatusRepository() {}
+
+    /**
+     * Deliver a snapshot no older than maxAgeMs, joining an in-flight request if there is one.
+     * Cached snapshots are delivered synchronously on the calling thread.
+     */
+    public void fetch(Context ctx, long maxAgeMs, Listener listener) {
+        List<ApiModels.StatusRow> cached = null;
+        boolean start = false;
+
+        synchronized (this) {
+            if (store == null) store = LocalStore.get(ctx);
+            if (latest != null && ageMs() <= maxAgeMs) {
+                cached = latest;
+            } else {
+                waiters.add(listener);
+                if (!inFlight) {
+                    inFlight = true;
+                    start = true;
+                }
+            }
+        }
+
+        if (cached != null) {
+            listener.onSnapshot(cached);
+            return;
+        }
+        if (!start) {
+            Log.d(TAG, "Joining in-flight status request");
+            return;
+        }
+
+        startSync(ApiClient.api(ctx));
+    }
+
+    // Completes the waiters, or starts over if a write was made while the request was out
+    private void startSync(SupabaseApi api) {
+        final long startedAt;
+        synchronized (this) {
+            startedAt = generation;
+        }
+        sync.sync(api, new StatusSync.Listener() {
+            @Override
+            public void onSnapshot(List<ApiModels.StatusRow> rows, List<ApiModels.StatusRow> fetched, boolean full) {
+                List<Listener> pending;
+                List<ApiModels.StatusRow> snapshot = Collections.unmodifiableList(rows);
+                synchronized (StatusRepository.this) {
+                    if (generation != startedAt) {
+                        // The answer may predate the write; waiters (and refresh() callers) need one that doesn't
+                        pending = null;
+                    } else {
+                        latest = snapshot;
+                        latestAt = SystemClock.elapsedRealtime();
+                        pending = drainWaiters();
+                    }
+                }
+                if (pending == null) {
+                    Log.d(TAG, "Status changed locally during the request, fetching again");
+                    startSync(api);
+                    return;
+                }
+                if (full) {
+                    store.execute(() -> store.replaceStatus(snapshot));
+                } else if (!fetched.isEmpty()) {
+                    store.execute(() -> store.upsertStatus(fetched));
+                }
+                for (Listener l : pending) l.onSnapshot(snapshot);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                List<Listener> pending;
+                synchronized (StatusRepository.this) {
+                    pending = drainWaiters();
+                }
+                for (Listener l : pending) l.onFailure(t);
+            }
+        });
+    }
+
+    /**
+     * Deliver whatever snapshot is on hand without going to the network: the in-memory
+     * one if there is one, otherwise the copy in LocalStore. Empty results are not delivered.
+     * The listener is called on the main thread.
+     */
+    public void loadCached(Context ctx, CacheListener listener) {
+        List<ApiModels.StatusRow> cached;
+        synchronized (this) {
+            if (store == null) store = LocalStore.get(ctx);
+            cached = latest;
+        }
+
+        if (cached != null) {
+            listener.onCached(cached);
+            return;
+        }
+
+        store.execute(() -> {
+            List<ApiModels.StatusRow> rows = Collections.unmodifiableList(store.loadStatus());
+            mainHandler.post(() -> {
+                List<ApiModels.StatusRow> current;
+                synchronized (StatusRepository.this) {
+                    // Disk copy only counts if the network hasn't answered meanwhile; latestAt stays 0 so it is never "fresh"
+                    if (latest == null && !rows.isEmpty()) latest = rows;
+                    current = latest;
+                }
+                if (current != null && !current.isEmpty()) listener.onCached(current);
+            });
+        });
+    }
+
+    /**
+     * Always go to the network. Shares a request that is already running, unless
+     * invalidate() was called after it started; then the answer comes from a new one.
+     */
+    public void refresh(Context ctx, Listener listener) {
+        fetch(ctx, -1, listener);
+    }
+
+    /**
+     * Tell the sync how often the background poller runs, so slow periods don't force full downloads
+     */
+    public void setPollPeriodMs(long periodMs) {
+        sync.setPollPeriodMs(periodMs);
+    }
+
+    /**
+     * Call after writing to the status table: the next fetch does a full download.
+     */
+    public synchronized void invalidate() {
+        sync.requestFullResync();
+        latestAt = 0;
+        generation++;
+    }
+
+    /**
+     * Merge a pushed row into the shared snapshot.
+     *
+     * @return the updated snapshot, or null until a full snapshot has been loaded
+     */
+    @Nullable
+    public synchronized List<ApiModels.StatusRow> applyChange(ApiModels.StatusRow row) {
+        List<ApiModels.StatusRow> rows = publish(sync.applyChange(row));
+        if (rows != null && store != null) {
+            LocalStore s = store;
+            s.execute(() -> s.upsertStatus(Collections.singletonList(row)));
+        }
+        return rows;
+    }
+
+    @Nullable
+    public synchronized List<ApiModels.StatusRow> applyDelete(String esp32Id) {
+        List<ApiModels.StatusRow> rows = publish(sync.applyDelete(esp32Id));
+        if (rows != null && store != null) {
+            LocalStore s = store;
+            s.execute(() -> s.deleteStatus(esp32Id));
+        }
+        return rows;
+    }
+
+    @Nullable
+    public synchronized List<ApiModels.StatusRow> latest() {
+        return latest;
+    }
+
+    /**
+     * Milliseconds since the snapshot was last confirmed, or Long.MAX_VALUE if there is none.
+     */
+    public synchronized long ageMs() {
+        if (latest == null || latestAt == 0) return Long.MAX_VALUE;
+        return SystemClock.elapsedRealtime() - latestAt;
+    }
+
+    @Nullable
+    private List<ApiModels.StatusRow> publish(@Nullable List<ApiModels.StatusRow> rows) {
+        if (rows == null) return null;
+        latest = Collections.unmodifiableList(rows);
+        latestAt = SystemClock.elapsedRealtime();
+        return latest;
+    }
+
+    private List<Listener> drainWaiters() {
+        List<Listener> pending = new ArrayList<>(waiters);
+        waiters.clear();
+        inFlight = false;
+        return pending;
+    }
+}
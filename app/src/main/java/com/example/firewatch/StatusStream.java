@@ -0,0 +1,120 @@
+package com.example.firewatch;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process feed of the snapshots the poller service applies.
+ *
+ * The service publishes every snapshot it accepts, polled or pushed, together
+ * with the transitions it found in it. Screens subscribe and render straight
+ * from the update instead of asking the network again. Listeners are called on
+ * the main thread; a new subscriber is handed the latest update right away.
+ */
+public final class StatusStream {
+
+    public interface Listener {
+        void onUpdate(Update update);
+    }
+
+    public static final class Update {
+        /** From nextSeq(); increases with every update, across service restarts */
+        public final long seq;
+        /** The whole snapshot, as returned by StatusRepository; never modified */
+        public final List<ApiModels.StatusRow> rows;
+        /** What changed since the previous update, in the service's view */
+        public final List<StatusDiff.Transition> transitions;
+        /** elapsedRealtime() when the service applied the snapshot */
+        public final long appliedAt;
+
+        Update(long seq, List<ApiModels.StatusRow> rows, List<StatusDiff.Transition> transitions) {
+            this.seq = seq;
+            this.rows = rows;
+            this.transitions = Collections.unmodifiableList(transitions);
+            this.appliedAt = SystemClock.elapsedRealtime();
+        }
+
+        public boolean firesChanged() {
+            for (StatusDiff.Transition t : transitions) {
+                if (t.kind.isFire()) return true;
+            }
+            return false;
+        }
+    }
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Process-wide, so a restarted service keeps numbering after the one before it
+    private static final AtomicLong seq = new AtomicLong();
+
+    // Main thread only
+    private static final List<Listener> listeners = new ArrayList<>();
+    @Nullable private static Update latest;
+    // Updates numbered at or below this came from a service that has since stopped
+    private static long retiredSeq;
+
+    private StatusStream() {}
+
+    /**
+     * The next sequence number; the service numbers every poll and push with it
+     */
+    static long nextSeq() {
+        return seq.incrementAndGet();
+    }
+
+    /**
+     * Called by the service from any thread; delivery happens on the main thread
+     */
+    static void publish(Update update) {
+        mainHandler.post(() -> deliver(update));
+    }
+
+    // Main thread
+    static void deliver(Update update) {
+        // Only ever forward; an update overtaken on its way here is dropped
+        if (update.seq <= retiredSeq || (latest != null && update.seq <= latest.seq)) return;
+        latest = update;
+        for (Listener l : new ArrayList<>(listeners)) l.onUpdate(update);
+    }
+
+    /**
+     * Main thread, when the service stops: forgets its last snapshot so new subscribers
+     * aren't handed it, and drops anything it still had on the way.
+     */
+    static void reset() {
+        latest = null;
+        retiredSeq = seq.get();
+    }
+
+    /**
+     * Main thread. Calls the listener with the latest update, if any, before returning.
+     */
+    public static void subscribe(Listener listener) {
+        if (listeners.contains(listener)) return;
+        listeners.add(listener);
+        if (latest != null) listener.onUpdate(latest);
+    }
+
+    /**
+     * Main thread
+     */
+    public static void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Main thread. The last update published, or null if the service hasn't applied one yet.
+     */
+    @Nullable
+    public static Update latest() {
+        return latest;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.firewatch;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Incremental sync of the status table.
+ *
+ * Keeps an in-memory snapshot keyed by esp32_id and only asks Supabase for rows
+ * whose last_updated is at or after the newest timestamp already seen. A full
+ * download replaces the snapshot on first use, every FULL_RESYNC_INTERVAL_MS,
+ * and whenever a gap is suspected (failed polls, a truncated delta page, or a
+ * local write that does not bump last_updated). Rows pushed while a request
+ * is out are not overwritten by older ones it brings back.
+ */
+public class StatusSync {
+
+    private static final String TAG = "StatusSync";
+
+    // Full download every minute catches deleted rows and clock-skewed sensors
+    private static final long FULL_RESYNC_INTERVAL_MS = 60_000;
+    // Three missed 5 s polls and we no longer trust the watermark
+    private static final long MAX_GAP_MS = 15_000;
+    // At slower poll periods both stretch, so idle polls stay deltas: a gap is
+    // three missed polls, and a full download comes every fifth poll at most
+    private static final int MAX_GAP_POLLS = 3;
+    private static final int FULL_RESYNC_POLLS = 5;
+    // Must match the limit in SupabaseApi.getStatusSince()
+    static final int DELTA_PAGE_LIMIT = 500;
+
+    public interface Listener {
+        /**
+         * @param rows    the whole merged snapshot
+         * @param fetched the rows this request returned that made it into the snapshot
+         * @param full    true if the snapshot was replaced rather than merged
+         */
+        void onSnapshot(List<ApiModels.StatusRow> rows, List<ApiModels.StatusRow> fetched, boolean full);
+        void onFailure(Throwable t);
+    }
+
+    private final Map<String, ApiModels.StatusRow> snapshot = new HashMap<>();
+    private String watermark;   // sent back verbatim, so the server compares with its own precision
+    private long watermarkMs = Timestamps.UNKNOWN;
+    private long lastFullSyncAt;
+    private long lastSuccessAt;
+    private boolean forceFull = true;
+    private long pollPeriodMs;
+    // Counts requestFullResync() calls, so a sync only clears the requests made before it started
+    private long resyncRequests;
+
+    /**
+     * Drop the watermark so the next sync downloads the whole table.
+     */
+    public synchronized void requestFullResync() {
+        forceFull = true;
+        resyncRequests++;
+    }
+
+    /**
+     * The poller's current period; the resync thresholds are never shorter than a few of them
+     */
+    public synchronized void setPollPeriodMs(long periodMs) {
+        pollPeriodMs = periodMs;
+    }
+
+    public void sync(SupabaseApi api, Listener listener) {
+        final boolean full;
+        final String since;
+        final long requests;
+        // Wall clock, like the receivedAtMs of pushed rows
+        final long sentAt = System.currentTimeMillis();
+        synchronized (this) {
+            requests = resyncRequests;
+            long now = SystemClock.elapsedRealtime();
+            full = forceFull
+                    || watermark == null
+                    || now - lastFullSyncAt >= Math.max(FULL_RESYNC_INTERVAL_MS, FULL_RESYNC_POLLS * pollPeriodMs)
+                    || now - lastSuccessAt >= Math.max(MAX_GAP_MS, MAX_GAP_POLLS * pollPeriodMs);
+            since = watermark;
+        }
+
+        Call<List<ApiModels.StatusRow>> call = full
+                ? api.getStatus()
+                : api.getStatusSince("gte." + since); // inclusive so rows sharing the watermark are not skipped
+
+        call.enqueue(new Callback<List<ApiModels.StatusRow>>() {
+            @Override
+            public void onResponse(Call<List<ApiModels.StatusRow>> call, Response<List<ApiModels.StatusRow>> response) {
+                if (!response.isSuccessful() || response.body() == null) {
+                    requestFullResync();
+                    listener.onFailure(new IOException("HTTP " + response.code()));
+                    return;
+                }
+
+                List<ApiModels.StatusRow> rows = response.body();
+                if (!full && rows.size() >= DELTA_PAGE_LIMIT) {
+                    // Delta page was truncated, fetch everything instead of paging
+                    Log.d(TAG, "Delta hit page limit, falling back to full resync");
+                    requestFullResync();
+                    sync(api, listener);
+                    return;
+                }
+
+                // When the headers arrived, not when the callback got to run
+                long receivedAt = response.raw().receivedResponseAtMillis();
+                for (ApiModels.StatusRow row : rows) row.receivedAtMs = receivedAt;
+                List<ApiModels.StatusRow> kept = new ArrayList<>(rows.size());
+                List<ApiModels.StatusRow> merged = apply(rows, full, requests, sentAt, kept);
+                listener.onSnapshot(merged, kept, full);
+            }
+
+            @Override
+            public void onFailure(Call<List<ApiModels.StatusRow>> call, Throwable t) {
+                requestFullResync();
+                listener.onFailure(t);
+            }
+        });
+    }
+
+    /**
+     * Merge a single pushed row into the snapshot.
+     *
+     * @return the updated snapshot, or null if there is no full snapshot yet to merge into
+     */
+    @Nullable
+    public synchronized List<ApiModels.StatusRow> applyChange(ApiModels.StatusRow row) {
+        if (lastFullSyncAt == 0 || row.esp32_id == null) return null;
+        snapshot.put(row.esp32_id, row);
+        advanceWatermark(row);
+        return sortedSnapshot();
+    }
+
+    @Nullable
+    public synchronized List<ApiModels.StatusRow> applyDelete(String esp32Id) {
+        if (lastFullSyncAt == 0) return null;
+        snapshot.remove(esp32Id);
+        return sortedSnapshot();
+    }
+
+    // Adds the rows that made it into the snapshot to kept
+    private synchronized List<ApiModels.StatusRow> apply(List<ApiModels.StatusRow> rows, boolean full, long requests,
+                                                         long sentAt, List<ApiModels.StatusRow> kept) {
+        long now = SystemClock.elapsedRealtime();
+        Set<String> fetched = full ? new HashSet<>() : null;
+        if (full) {
+            watermark = null;
+            watermarkMs = Timestamps.UNKNOWN;
+            lastFullSyncAt = now;
+            // A resync asked for while this request was out still has to happen
+            if (resyncRequests == requests) forceFull = false;
+        }
+
+        for (ApiModels.StatusRow row : rows) {
+            if (row.esp32_id == null) continue;
+            if (full) fetched.add(row.esp32_id);
+            if (merge(row, sentAt)) kept.add(row);
+        }
+        // A full download is the whole table; anything it didn't return was deleted
+        if (full) snapshot.keySet().retainAll(fetched);
+        lastSuccessAt = now;
+
+        Log.d(TAG, (full ? "Full" : "Delta") + " sync: " + rows.size() + " rows, snapshot " + snapshot.size());
+        return sortedSnapshot();
+    }
+
+    // A row pushed while the request was out may be newer than the one it returned;
+    // that one is kept. Otherwise the server's answer wins, even if it carries an
+    // older time, so a full download still settles sensors whose clock jumped back.
+    // False if the fetched row was dropped.
+    private boolean merge(ApiModels.StatusRow row, long sentAt) {
+        ApiModels.StatusRow current = snapshot.get(row.esp32_id);
+        if (current != null && current.receivedAtMs > sentAt
+                && current.lastUpdatedMs() > row.lastUpdatedMs()) {
+            advanceWatermark(current);
+            return false;
+        }
+        snapshot.put(row.esp32_id, row);
+        advanceWatermark(row);
+        return true;
+    }
+
+    // Compared as instants: the strings may carry different UTC offsets
+    private void advanceWatermark(ApiModels.StatusRow row) {
+        long ms = row.lastUpdatedMs();
+        if (ms != Timestamps.UNKNOWN && (watermark == null || ms > watermarkMs)) {
+            watermark = row.last_updated;
+            watermarkMs = ms;
+        }
+    }
+
+    // Same order as getStatus(): newest first, unknown times last
+    private List<ApiModels.StatusRow> sortedSnapshot() {
+        List<ApiModels.StatusRow> list = new ArrayList<>(snapshot.values());
+        Collections.sort(list, (a, b) -> Long.compare(b.lastUpdatedMs(), a.lastUpdatedMs()));
+        return list;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.firewatch;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical instances of the identifiers that repeat in every response
+ * (esp32_id, location, block, status).
+ *
+ * Each poll returns the same few dozen values; without this every snapshot
+ * kept its own copies alive. Unlike String.intern() the pool is bounded and
+ * lives in the normal heap. Safe to call from OkHttp's threads.
+ */
+public final class StringPool {
+
+    // Far above the number of devices and locations; only junk input ever fills it
+    private static final int MAX_SIZE = 4096;
+
+    private static final ConcurrentHashMap<String, String> pool = new ConcurrentHashMap<>();
+
+    private StringPool() {}
+
+    public static String intern(String value) {
+        if (value == null) return null;
+        String existing = pool.get(value);
+        if (existing != null) return existing;
+
+        if (pool.size() >= MAX_SIZE) pool.clear();
+        existing = pool.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+}
@@ -13,27 +13,54 @@ public interface SupabaseApi {
 
     //logs
 
-    @GET("rest/v1/logs?select=*&order=timestamp.desc&limit=50")
-    Call<List<ApiModels.LogRow>> getLogs();
+    // Pass one of the LogRow.COLUMNS_* projections as select
 
-    @GET("rest/v1/logs?select=*&order=timestamp.desc")
-    Call<List<ApiModels.LogRow>> getLogsByDevice(@Query("esp32_id") String esp32IdQuery);
+    @GET("rest/v1/logs?order=timestamp.desc&limit=50")
+    Call<List<ApiModels.LogRow>> getLogs(@Query("select") String select);
 
-    @GET("rest/v1/logs?select=*&order=timestamp.desc")
-    Call<List<ApiModels.LogRow>> getLogsByStatus(@Query("status") String status);
+    /**
+     * One page of a device's history, newest first, keyset-paginated on (timestamp, id).
+     * keyset is null for the first page, otherwise LogRow.keysetBefore(lastRowOnScreen).
+     */
+    @GET("rest/v1/logs?order=timestamp.desc,id.desc")
+    Call<List<ApiModels.LogRow>> getLogsByDevice(@Query("select") String select,
+                                                 @Query("esp32_id") String esp32IdQuery,
+                                                 @Query("or") String keyset,
+                                                 @Query("limit") int limit);
+
+    /**
+     * Page in the other direction, oldest first, for scrolling back up after the window moved.
+     * keyset is LogRow.keysetAfter(firstRowOnScreen).
+     */
+    @GET("rest/v1/logs?order=timestamp.asc,id.asc")
+    Call<List<ApiModels.LogRow>> getNewerLogsByDevice(@Query("select") String select,
+                                                      @Query("esp32_id") String esp32IdQuery,
+                                                      @Query("or") String keyset,
+                                                      @Query("limit") int limit);
+
+    @GET("rest/v1/logs?order=timestamp.desc")
+    Call<List<ApiModels.LogRow>> getLogsByStatus(@Query("select") String select,
+                                                 @Query("status") String status);
 
     //status
 
-    @GET("rest/v1/status?select=*&order=last_updated.desc")
+    @GET("rest/v1/status?select=" + ApiModels.StatusRow.COLUMNS + "&order=last_updated.desc")
     Call<List<ApiModels.StatusRow>> getStatus();
 
-    @GET("rest/v1/status?select=*")
+    /**
+     * Delta query for StatusSync: rows touched at or after the given watermark.
+     * Pass the filter as "gte.<timestamp>". Limit must match StatusSync.DELTA_PAGE_LIMIT.
+     */
+    @GET("rest/v1/status?select=" + ApiModels.StatusRow.COLUMNS + "&order=last_updated.desc&limit=500")
+    Call<List<ApiModels.StatusRow>> getStatusSince(@Query("last_updated") String lastUpdatedFilter);
+
+    @GET("rest/v1/status?select=" + ApiModels.StatusRow.COLUMNS)
     Call<List<ApiModels.StatusRow>> getDeviceStatus(@Query("esp32_id") String esp32Id);
 
-    @GET("rest/v1/status?select=*&last_status=eq.fire&order=last_updated.desc")
+    @GET("rest/v1/status?select=" + ApiModels.StatusRow.COLUMNS + "&last_status=eq.fire&order=last_updated.desc")
     Call<List<ApiModels.StatusRow>> getFireDevices();
 
-    @GET("rest/v1/status?select=*&last_status=eq.safe&order=last_updated.desc")
+    @GET("rest/v1/status?select=" + ApiModels.StatusRow.COLUMNS + "&last_status=eq.safe&order=last_updated.desc")
     Call<List<ApiModels.StatusRow>> getSafeDevices();
 
    //device location update
@@ -44,7 +71,8 @@ public interface SupabaseApi {
     );
 
     /**
-     * Update system check status for a specific device
+     * Update system check status for the devices matching the filter:
+     * "eq.<id>" for one device, or a match-all filter for bulk updates (see BulkCheckUpdater)
      */
     @PATCH("rest/v1/status")
     Call<Void> updateDeviceCheck(
@@ -57,6 +85,12 @@ public interface SupabaseApi {
     @GET("rest/v1/users?select=*")
     Call<List<ApiModels.UserRow>> getUserByClerkId(@Query("clerk_user_id") String clerkUserId);
 
+    /**
+     * Existence check for login: only the id of at most one row
+     */
+    @GET("rest/v1/users?select=id&limit=1")
+    Call<List<ApiModels.UserRef>> findUserByClerkId(@Query("clerk_user_id") String clerkUserId);
+
     @GET("rest/v1/users?select=*")
     Call<List<ApiModels.UserRow>> getUserByEmail(@Query("email") String email);
 
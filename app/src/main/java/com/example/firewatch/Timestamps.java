@@ -0,0 +1,186 @@
+package com.example.firewatch;
+
+import java.util.TimeZone;
+
+/**
+ * ISO-8601 timestamps as sent by PostgREST, e.g. 2025-10-01T12:34:56.123456+00:00.
+ *
+ * parse() runs once per row at deserialization and allocates nothing, so
+ * comparisons work on epoch millis instead of strings. String order is wrong
+ * as soon as two rows carry different offsets. format() renders in the
+ * phone's time zone for display.
+ */
+public final class Timestamps {
+
+    /** Returned by parse() for null or malformed input. Sorts before every real time. */
+    public static final long UNKNOWN = Long.MIN_VALUE;
+
+    private Timestamps() {}
+
+    /**
+     * Epoch millis of an ISO-8601 date-time: date, 'T' or ' ', HH:mm, optional :ss,
+     * optional fraction (truncated to millis) and optional Z / +HH / +HHMM / +HH:MM.
+     * No offset means UTC.
+     */
+    public static long parse(CharSequence s) {
+        if (s == null || s.length() < 16) return UNKNOWN;
+        int n = s.length();
+
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        char sep = s.charAt(10);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0
+                || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(13) != ':'
+                || (sep != 'T' && sep != 't' && sep != ' ')) {
+            return UNKNOWN;
+        }
+
+        int i = 16;
+        int second = 0;
+        int millis = 0;
+        if (i < n && s.charAt(i) == ':') {
+            second = digits(s, i + 1, 2);
+            if (second < 0) return UNKNOWN;
+            i += 3;
+            if (i < n && (s.charAt(i) == '.' || s.charAt(i) == ',')) {
+                int start = ++i;
+                int scale = 100;
+                while (i < n && isDigit(s.charAt(i))) {
+                    millis += (s.charAt(i) - '0') * scale;
+                    scale /= 10;
+                    i++;
+                }
+                if (i == start) return UNKNOWN;
+            }
+        }
+
+        long offsetMs = 0;
+        if (i < n) {
+            char c = s.charAt(i);
+            if (c == 'Z' || c == 'z') {
+                i++;
+            } else if (c == '+' || c == '-') {
+                int oh = digits(s, i + 1, 2);
+                if (oh < 0) return UNKNOWN;
+                i += 3;
+                int om = 0;
+                if (i < n) {
+                    if (s.charAt(i) == ':') i++;
+                    om = digits(s, i, 2);
+                    if (om < 0) return UNKNOWN;
+                    i += 2;
+                }
+                offsetMs = (oh * 60L + om) * 60_000L;
+                if (c == '-') offsetMs = -offsetMs;
+            } else {
+                return UNKNOWN;
+            }
+        }
+        if (i != n) return UNKNOWN;
+
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour > 23 || minute > 59 || second > 60) {
+            return UNKNOWN;
+        }
+        if (second == 60) second = 59; // leap second
+
+        long days = daysFromCivil(year, month, day);
+        return ((days * 24 + hour) * 60 + minute) * 60_000L + second * 1000L + millis - offsetMs;
+    }
+
+    /**
+     * "yyyy-MM-dd HH:mm" (or with ":ss") in the default time zone, or null for UNKNOWN.
+     */
+    public static String format(long epochMs, boolean withSeconds) {
+        if (epochMs == UNKNOWN) return null;
+        long local = epochMs + TimeZone.getDefault().getOffset(epochMs);
+
+        long days = Math.floorDiv(local, 86_400_000L);
+        int msOfDay = (int) Math.floorMod(local, 86_400_000L);
+
+        // Inverse of daysFromCivil()
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        int doe = (int) (z - era * 146097);
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+        int secs = msOfDay / 1000;
+        char[] out = new char[withSeconds ? 19 : 16];
+        put(out, 0, (int) year, 4);
+        out[4] = '-';
+        put(out, 5, month, 2);
+        out[7] = '-';
+        put(out, 8, day, 2);
+        out[10] = ' ';
+        put(out, 11, secs / 3600, 2);
+        out[13] = ':';
+        put(out, 14, secs / 60 % 60, 2);
+        if (withSeconds) {
+            out[16] = ':';
+            put(out, 17, secs % 60, 2);
+        }
+        return new String(out);
+    }
+
+    /**
+     * format(), falling back to the raw string the time was parsed from, then "Unknown".
+     */
+    public static String formatOr(long epochMs, boolean withSeconds, String raw) {
+        String formatted = format(epochMs, withSeconds);
+        if (formatted != null) return formatted;
+        return raw == null || raw.isEmpty() ? "Unknown" : raw;
+    }
+
+    // Days since 1970-01-01 in the proleptic Gregorian calendar
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yoe = y - era * 400;
+        long doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4: case 6: case 9: case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    // Non-negative value of count digits at start, or -1
+    private static int digits(CharSequence s, int start, int count) {
+        if (start + count > s.length()) return -1;
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static void put(char[] out, int at, int value, int width) {
+        for (int i = at + width - 1; i >= at; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
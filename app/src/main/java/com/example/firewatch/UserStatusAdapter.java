@@ -6,21 +6,30 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.chip.Chip;
 
-import java.util.ArrayList;
 import java.util.List;
 
-public class UserStatusAdapter extends RecyclerView.Adapter<UserStatusAdapter.VH> {
+public class UserStatusAdapter extends ListAdapter<ApiModels.StatusRow, UserStatusAdapter.VH> {
 
-    private final List<ApiModels.StatusRow> data = new ArrayList<>();
+    private final RowDiff.StableIds ids = new RowDiff.StableIds();
 
+    public UserStatusAdapter() {
+        super(RowDiff.STATUS);
+        setHasStableIds(true);
+    }
+
+    // Diffed against the current list in the background; only changed rows are rebound
     public void setData(List<ApiModels.StatusRow> items) {
-        data.clear();
-        if (items != null) data.addAll(items);
-        notifyDataSetChanged();
+        submitList(items);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return ids.of(getItem(position), position);
     }
 
     @NonNull
@@ -31,14 +40,33 @@ public class UserStatusAdapter extends RecyclerView.Adapter<UserStatusAdapter.VH
         return new VH(v);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull VH h, int pos, @NonNull List<Object> payloads) {
+        int changes = RowDiff.changes(payloads);
+        if (changes == 0) {
+            onBindViewHolder(h, pos);
+            return;
+        }
+        ApiModels.StatusRow row = getItem(pos);
+        if ((changes & RowDiff.CHANGED_TIME) != 0) bindTime(h, row);
+        if ((changes & RowDiff.CHANGED_STATE) != 0) bindState(h, row);
+    }
+
     @Override
     public void onBindViewHolder(@NonNull VH h, int pos) {
-        ApiModels.StatusRow row = data.get(pos);
+        ApiModels.StatusRow row = getItem(pos);
 
         String displayText = row.getDisplayName();
         h.txtLocation.setText(displayText);
-        h.txtTime.setText("Updated: " + formatTime(row.last_updated));
+        bindTime(h, row);
+        bindState(h, row);
+    }
+
+    private void bindTime(VH h, ApiModels.StatusRow row) {
+        h.txtTime.setText("Updated: " + Timestamps.formatOr(row.lastUpdatedMs(), false, row.last_updated));
+    }
 
+    private void bindState(VH h, ApiModels.StatusRow row) {
         // Check maintenance mode first
         if (!row.isSystemActive()) {
             h.chip.setText("Maintenance");
@@ -54,8 +82,9 @@ public class UserStatusAdapter extends RecyclerView.Adapter<UserStatusAdapter.VH
             h.itemView.setAlpha(1.0f);
             h.txtLocation.setTextColor(h.itemView.getContext().getColor(R.color.on_surface));
 
-            boolean isFire = "fire".equalsIgnoreCase(row.last_status);
-            boolean isOffline = "failed".equalsIgnoreCase(row.last_status);
+            DeviceStatus state = row.state();
+            boolean isFire = state == DeviceStatus.FIRE;
+            boolean isOffline = state == DeviceStatus.FAILED;
 
             if (isFire) {
                 h.chip.setText("Fire");
@@ -81,19 +110,6 @@ public class UserStatusAdapter extends RecyclerView.Adapter<UserStatusAdapter.VH
             }
         }
     }
-    private String formatTime(String timestamp) {
-        if (timestamp == null || timestamp.isEmpty()) return "Unknown";
-        try {
-            return timestamp.substring(0, Math.min(16, timestamp.length())).replace('T', ' ');
-        } catch (Exception e) {
-            return timestamp;
-        }
-    }
-
-    @Override
-    public int getItemCount() {
-        return data.size();
-    }
 
     static class VH extends RecyclerView.ViewHolder {
         TextView txtLocation, txtTime;
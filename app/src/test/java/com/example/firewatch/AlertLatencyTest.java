@@ -0,0 +1,110 @@
+package com.example.firewatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class AlertLatencyTest {
+
+    @Before
+    public void setUp() {
+        AlertLatency.clear();
+    }
+
+    @After
+    public void tearDown() {
+        AlertLatency.clear();
+    }
+
+    private static AlertLatency.Histogram histogram(AlertLatency.Stage stage) {
+        for (AlertLatency.Histogram h : AlertLatency.histograms()) {
+            if (h.stage.equals(stage.label)) return h;
+        }
+        throw new AssertionError(stage.label);
+    }
+
+    // Sensor -> notify of ms, with receipt and parse in between
+    private static void record(long ms) {
+        AlertLatency.record("ESP_" + ms, 1000, 1000 + ms / 2, 1000 + ms / 2, 1000 + ms);
+    }
+
+    @Test
+    public void nearestRankPercentiles() {
+        for (int ms = 1; ms <= 100; ms++) record(ms);
+
+        AlertLatency.Histogram h = histogram(AlertLatency.Stage.SENSOR_TO_NOTIFY);
+        assertEquals(100, h.count);
+        assertEquals(50, h.p50Ms);
+        assertEquals(95, h.p95Ms);
+        assertEquals(99, h.p99Ms);
+        assertEquals(100, h.maxMs);
+        // Bounds are inclusive: 1..100 all land in the first bucket
+        assertEquals(100, h.buckets[0]);
+    }
+
+    @Test
+    public void smallSamples() {
+        record(300);
+        AlertLatency.Histogram h = histogram(AlertLatency.Stage.SENSOR_TO_NOTIFY);
+        assertEquals(300, h.p50Ms);
+        assertEquals(300, h.p99Ms);
+
+        record(100);
+        h = histogram(AlertLatency.Stage.SENSOR_TO_NOTIFY);
+        assertEquals(100, h.p50Ms);
+        assertEquals(300, h.p95Ms);
+    }
+
+    @Test
+    public void emptyHistogram() {
+        AlertLatency.Histogram h = histogram(AlertLatency.Stage.SENSOR_TO_NOTIFY);
+        assertEquals(0, h.count);
+        assertEquals(0, h.p50Ms);
+        assertEquals(0, h.maxMs);
+    }
+
+    @Test
+    public void bucketsBySlowness() {
+        record(100);
+        record(101);
+        record(60_000);
+        record(60_001);
+
+        int[] buckets = histogram(AlertLatency.Stage.SENSOR_TO_NOTIFY).buckets;
+        assertEquals(AlertLatency.BUCKET_BOUNDS_MS.length + 1, buckets.length);
+        assertEquals(1, buckets[0]);
+        assertEquals(1, buckets[1]);
+        assertEquals(1, buckets[buckets.length - 2]);
+        assertEquals(1, buckets[buckets.length - 1]);
+    }
+
+    @Test
+    public void unknownEndsAreLeftOut() {
+        // Not notified, and a sensor time that didn't parse
+        AlertLatency.record("ESP_1", 1000, 1200, 1210, 0);
+        AlertLatency.record("ESP_2", Timestamps.UNKNOWN, 1200, 1210, 1300);
+
+        assertEquals(1, histogram(AlertLatency.Stage.SENSOR_TO_RECEIPT).count);
+        assertEquals(2, histogram(AlertLatency.Stage.RECEIPT_TO_PARSED).count);
+        assertEquals(1, histogram(AlertLatency.Stage.PARSED_TO_NOTIFY).count);
+        assertEquals(0, histogram(AlertLatency.Stage.SENSOR_TO_NOTIFY).count);
+    }
+
+    @Test
+    public void ringKeepsTheLatest() {
+        for (int i = 0; i < AlertLatency.CAPACITY + 10; i++) {
+            AlertLatency.record("ESP_" + i, 1000, 1000 + i, 1000 + i, 1000 + i);
+        }
+
+        assertEquals(AlertLatency.CAPACITY + 10, AlertLatency.recorded());
+        List<AlertLatency.Sample> samples = AlertLatency.samples();
+        assertEquals(AlertLatency.CAPACITY, samples.size());
+        assertEquals("ESP_10", samples.get(0).device);
+        assertEquals("ESP_" + (AlertLatency.CAPACITY + 9), samples.get(samples.size() - 1).device);
+        assertEquals(AlertLatency.CAPACITY, histogram(AlertLatency.Stage.SENSOR_TO_NOTIFY).count);
+    }
+}
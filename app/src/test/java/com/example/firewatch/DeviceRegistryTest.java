@@ -0,0 +1,101 @@
+package com.example.firewatch;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DeviceRegistryTest {
+
+    private final DeviceRegistry registry = new DeviceRegistry();
+
+    private static String id(int i) {
+        return String.format(Locale.US, "ESP32_%04d", i);
+    }
+
+    @Test
+    public void unknownIdHasNoSlot() {
+        assertEquals(DeviceRegistry.NO_SLOT, registry.slotOf("ESP_1"));
+    }
+
+    @Test
+    public void storesStateBySlot() {
+        int slot = registry.put("ESP_1", DeviceStatus.FIRE, 1234L, true, "Lab", "A");
+
+        assertEquals(slot, registry.slotOf("ESP_1"));
+        assertEquals("ESP_1", registry.id(slot));
+        assertEquals(DeviceStatus.FIRE, registry.status(slot));
+        assertEquals(1234L, registry.lastUpdatedMs(slot));
+        assertTrue(registry.inMaintenance(slot));
+        assertEquals("Lab", registry.location(slot));
+        assertEquals("A", registry.block(slot));
+        assertTrue(registry.isPresent(slot));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void slotsSurviveRehash() {
+        // Well past the initial capacity, so the columns grow and the id table is rehashed
+        int n = 1000;
+        int[] slots = new int[n];
+        for (int i = 0; i < n; i++) {
+            slots[i] = registry.put(id(i), DeviceStatus.SAFE, i, false, "Room " + i, null);
+        }
+
+        assertEquals(n, registry.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(slots[i], registry.slotOf(id(i)));
+            assertEquals(id(i), registry.id(slots[i]));
+            assertEquals(i, registry.lastUpdatedMs(slots[i]));
+            assertEquals("Room " + i, registry.location(slots[i]));
+        }
+        assertEquals(DeviceRegistry.NO_SLOT, registry.slotOf(id(n)));
+    }
+
+    @Test
+    public void returningDeviceGetsItsSlotBack() {
+        int first = registry.put("ESP_1", DeviceStatus.FIRE, 1L, true, "Lab", "A");
+        int second = registry.put("ESP_2", DeviceStatus.SAFE, 1L, false, "Office", null);
+
+        registry.remove(first);
+        assertFalse(registry.isPresent(first));
+        assertFalse(registry.inMaintenance(first));
+        assertNull(registry.location(first));
+        assertEquals(1, registry.size());
+        assertEquals(first, registry.slotOf("ESP_1"));
+
+        // A new device doesn't take the reserved slot
+        int third = registry.put("ESP_3", DeviceStatus.SAFE, 1L, false, null, null);
+        assertTrue(third != first && third != second);
+
+        assertEquals(first, registry.put("ESP_1", DeviceStatus.SAFE, 2L, false, "Lab", "A"));
+        assertTrue(registry.isPresent(first));
+        assertEquals(DeviceStatus.SAFE, registry.status(first));
+    }
+
+    @Test
+    public void slotForAssignsWithoutMarkingPresent() {
+        int slot = registry.slotFor("ESP_1");
+
+        assertEquals(slot, registry.slotFor("ESP_1"));
+        assertFalse(registry.isPresent(slot));
+        assertEquals(0, registry.size());
+        assertEquals(slot, registry.put("ESP_1", DeviceStatus.SAFE, 1L, false, null, null));
+    }
+
+    @Test
+    public void iteratesPresentSlots() {
+        int a = registry.put("ESP_1", DeviceStatus.SAFE, 1L, false, null, null);
+        int b = registry.put("ESP_2", DeviceStatus.SAFE, 1L, false, null, null);
+        int c = registry.put("ESP_3", DeviceStatus.SAFE, 1L, false, null, null);
+        registry.remove(b);
+
+        assertEquals(a, registry.nextPresent(0));
+        assertEquals(c, registry.nextPresent(a + 1));
+        assertEquals(DeviceRegistry.NO_SLOT, registry.nextPresent(c + 1));
+    }
+}
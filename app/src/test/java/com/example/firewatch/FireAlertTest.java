@@ -0,0 +1,100 @@
+package com.example.firewatch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FireAlertTest {
+
+    private final FakeNotifier notifier = new FakeNotifier();
+    private final FireAlert alert = new FireAlert(notifier);
+
+    @Test
+    public void firstFireAlertsAndLaterChangesFollow() {
+        assertTrue(alert.update(Collections.singletonList("Lab")));
+        assertEquals(FireAlert.State.ALERTING, alert.state());
+
+        assertFalse(alert.update(Collections.singletonList("Lab")));
+
+        // Spreading alerts again; burning out only updates
+        assertTrue(alert.update(Arrays.asList("Lab", "Office")));
+        assertEquals(FireAlert.State.ALERTING, alert.state());
+        assertTrue(alert.update(Collections.singletonList("Office")));
+        assertEquals(FireAlert.State.ONGOING, alert.state());
+
+        assertTrue(alert.update(Collections.emptyList()));
+        assertEquals(FireAlert.State.IDLE, alert.state());
+        assertEquals(Arrays.asList(
+                "ALERTING [Lab] new", "ALERTING [Lab, Office]", "ONGOING [Office]", "cancel"),
+                notifier.events);
+    }
+
+    @Test
+    public void fireBeforePermissionIsShownOnceGranted() {
+        notifier.permitted = false;
+        assertFalse(alert.update(Collections.singletonList("Lab")));
+        assertEquals(FireAlert.State.IDLE, alert.state());
+        assertTrue(alert.pending());
+        assertEquals(0, alert.notifiedAt());
+        assertTrue(notifier.events.isEmpty());
+
+        // Still burning, still denied
+        assertFalse(alert.update(Collections.singletonList("Lab")));
+        assertTrue(notifier.events.isEmpty());
+
+        notifier.permitted = true;
+        assertTrue(alert.update(Collections.singletonList("Lab")));
+        assertEquals(FireAlert.State.ALERTING, alert.state());
+        assertFalse(alert.pending());
+        assertTrue(alert.notifiedAt() > 0);
+        assertEquals(Collections.singletonList("ALERTING [Lab] new"), notifier.events);
+    }
+
+    @Test
+    public void fireOutBeforePermissionLeavesNothingPending() {
+        notifier.permitted = false;
+        alert.update(Collections.singletonList("Lab"));
+        alert.update(Collections.emptyList());
+
+        assertFalse(alert.pending());
+        assertTrue(notifier.events.isEmpty());
+    }
+
+    @Test
+    public void closedAlertIgnoresUpdates() {
+        alert.update(Collections.singletonList("Lab"));
+        alert.close();
+
+        assertFalse(alert.update(Collections.singletonList("Office")));
+        assertEquals(FireAlert.State.IDLE, alert.state());
+        assertEquals(Arrays.asList("ALERTING [Lab] new", "cancel"), notifier.events);
+    }
+
+    private static class FakeNotifier implements FireAlert.Notifier {
+        final List<String> events = new ArrayList<>();
+        boolean permitted = true;
+
+        @Override
+        public boolean permitted() {
+            return permitted;
+        }
+
+        @Override
+        public void show(FireAlert.State state, Set<String> locations, boolean newIncident) {
+            events.add(state + " " + locations + (newIncident ? " new" : ""));
+        }
+
+        @Override
+        public void cancel() {
+            events.add("cancel");
+        }
+    }
+}
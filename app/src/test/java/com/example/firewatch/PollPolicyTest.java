@@ -0,0 +1,92 @@
+package com.example.firewatch;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PollPolicyTest {
+
+    private long now = 1_000_000L;
+    private final PollPolicy.Adaptive policy = new PollPolicy.Adaptive(() -> now, new Random(42));
+
+    @Test
+    public void normalUntilQuiet() {
+        assertEquals(PollPolicy.Adaptive.NORMAL_MS, policy.nextDelayMs());
+
+        now += PollPolicy.Adaptive.QUIET_AFTER_MS;
+        assertEquals(PollPolicy.Adaptive.QUIET_MS, policy.nextDelayMs());
+        assertEquals(PollPolicy.Adaptive.QUIET_MS, policy.currentDelayMs());
+    }
+
+    @Test
+    public void fireWinsOverEverything() {
+        policy.onRealtime(true);
+        policy.onScreen(false);
+        policy.onFireState(true);
+        assertEquals(PollPolicy.Adaptive.FIRE_MS, policy.nextDelayMs());
+    }
+
+    @Test
+    public void quietCountsFromWhenTheFireCleared() {
+        policy.onFireState(true);
+        now += PollPolicy.Adaptive.QUIET_AFTER_MS;
+        policy.onFireState(false);
+        assertEquals(PollPolicy.Adaptive.NORMAL_MS, policy.nextDelayMs());
+
+        now += PollPolicy.Adaptive.QUIET_AFTER_MS;
+        assertEquals(PollPolicy.Adaptive.QUIET_MS, policy.nextDelayMs());
+    }
+
+    @Test
+    public void realtimeThenScreenOff() {
+        policy.onRealtime(true);
+        assertEquals(PollPolicy.Adaptive.REALTIME_MS, policy.nextDelayMs());
+
+        policy.onRealtime(false);
+        policy.onScreen(false);
+        assertEquals(PollPolicy.Adaptive.SCREEN_OFF_MS, policy.nextDelayMs());
+    }
+
+    @Test
+    public void backsOffFromTheCurrentPeriodWithinJitter() {
+        for (int failures = 1; failures <= 4; failures++) {
+            policy.onPollResult(false);
+            long base = PollPolicy.Adaptive.NORMAL_MS << failures;
+            long delay = policy.nextDelayMs();
+            assertTrue(delay + " after " + failures, delay >= base * 75 / 100 && delay <= base * 125 / 100);
+        }
+
+        policy.onPollResult(true);
+        assertEquals(PollPolicy.Adaptive.NORMAL_MS, policy.nextDelayMs());
+    }
+
+    @Test
+    public void backoffIsCapped() {
+        for (int i = 0; i < 20; i++) {
+            policy.onPollResult(false);
+            assertTrue(policy.nextDelayMs() <= PollPolicy.Adaptive.MAX_BACKOFF_MS);
+        }
+        assertEquals(PollPolicy.Adaptive.MAX_BACKOFF_MS, policy.nextDelayMs());
+    }
+
+    @Test
+    public void fireBackoffStaysWithinNormalPeriod() {
+        policy.onFireState(true);
+        for (int i = 0; i < 20; i++) {
+            policy.onPollResult(false);
+            long delay = policy.nextDelayMs();
+            assertTrue(delay >= PollPolicy.Adaptive.FIRE_MS);
+            assertTrue(delay <= PollPolicy.Adaptive.NORMAL_MS);
+        }
+    }
+
+    @Test
+    public void backoffNeverShortensThePeriod() {
+        policy.onScreen(false);
+        policy.onPollResult(false);
+        assertTrue(policy.nextDelayMs() >= PollPolicy.Adaptive.SCREEN_OFF_MS);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.firewatch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StatusDiffTest {
+
+    private final StatusDiff diff = new StatusDiff();
+
+    private static ApiModels.StatusRow row(String id, String status) {
+        return row(id, status, "Lab", "A");
+    }
+
+    private static ApiModels.StatusRow row(String id, String status, String location, String block) {
+        ApiModels.StatusRow row = new ApiModels.StatusRow();
+        row.esp32_id = id;
+        row.last_status = status;
+        row.last_updated = "2025-10-01T12:00:00+00:00";
+        row.location = location;
+        row.block = block;
+        return row;
+    }
+
+    private static List<String> describe(List<StatusDiff.Transition> transitions) {
+        List<String> out = new ArrayList<>();
+        for (StatusDiff.Transition t : transitions) out.add(t.kind + " " + t.row.esp32_id);
+        return out;
+    }
+
+    private List<String> fires() {
+        List<String> out = new ArrayList<>();
+        for (int slot = diff.firstFire(); slot != DeviceRegistry.NO_SLOT; slot = diff.nextFire(slot)) {
+            out.add(diff.id(slot));
+        }
+        return out;
+    }
+
+    private List<String> offline() {
+        List<String> out = new ArrayList<>();
+        for (int slot = diff.firstOffline(); slot != DeviceRegistry.NO_SLOT; slot = diff.nextOffline(slot)) {
+            out.add(diff.id(slot));
+        }
+        return out;
+    }
+
+    @Test
+    public void firstSnapshotReportsAgainstEmptyBaseline() {
+        List<StatusDiff.Transition> out = diff.update(Arrays.asList(
+                row("ESP_1", "fire"), row("ESP_2", "safe"), row("ESP_3", "failed")));
+
+        assertEquals(Arrays.asList("FIRE_STARTED ESP_1", "WENT_OFFLINE ESP_3"), describe(out));
+        assertTrue(diff.hasFire());
+        assertEquals(Collections.singletonList("ESP_1"), fires());
+        assertEquals(Collections.singletonList("ESP_3"), offline());
+    }
+
+    @Test
+    public void unchangedSnapshotReportsNothing() {
+        diff.update(Arrays.asList(row("ESP_1", "fire"), row("ESP_2", "safe")));
+        assertTrue(diff.update(Arrays.asList(row("ESP_1", "fire"), row("ESP_2", "safe"))).isEmpty());
+    }
+
+    @Test
+    public void fireAndOfflineTransitions() {
+        diff.update(Arrays.asList(row("ESP_1", "safe"), row("ESP_2", "fire"), row("ESP_3", "failed")));
+
+        List<StatusDiff.Transition> out = diff.update(Arrays.asList(
+                row("ESP_1", "fire"), row("ESP_2", "safe"), row("ESP_3", "safe")));
+
+        assertEquals(Arrays.asList("FIRE_STARTED ESP_1", "FIRE_CLEARED ESP_2", "CAME_BACK ESP_3"),
+                describe(out));
+        assertEquals(Collections.singletonList("ESP_1"), fires());
+        assertTrue(offline().isEmpty());
+    }
+
+    @Test
+    public void firesKeepTheOrderTheyStarted() {
+        diff.update(Arrays.asList(row("ESP_1", "safe"), row("ESP_2", "fire")));
+        diff.update(Arrays.asList(row("ESP_1", "fire"), row("ESP_2", "fire")));
+
+        assertEquals(Arrays.asList("ESP_2", "ESP_1"), fires());
+
+        diff.update(Arrays.asList(row("ESP_1", "fire"), row("ESP_2", "safe")));
+        diff.update(Arrays.asList(row("ESP_1", "fire"), row("ESP_2", "fire")));
+        assertEquals(Arrays.asList("ESP_1", "ESP_2"), fires());
+    }
+
+    @Test
+    public void maintenanceAndRelocation() {
+        diff.update(Collections.singletonList(row("ESP_1", "safe", "Lab", "A")));
+
+        ApiModels.StatusRow paused = row("ESP_1", "safe", "Office", "B");
+        paused.check = false;
+        List<StatusDiff.Transition> out = diff.update(Collections.singletonList(paused));
+
+        assertEquals(Arrays.asList("ENTERED_MAINTENANCE ESP_1", "RELOCATED ESP_1"), describe(out));
+        assertEquals(1, diff.maintenanceCount());
+        assertEquals(ApiModels.StatusRow.displayName("Lab", "A", "ESP_1"), out.get(1).from);
+
+        ApiModels.StatusRow resumed = row("ESP_1", "safe", "Office", "B");
+        resumed.check = true;
+        assertEquals(Collections.singletonList("LEFT_MAINTENANCE ESP_1"),
+                describe(diff.update(Collections.singletonList(resumed))));
+        assertEquals(0, diff.maintenanceCount());
+    }
+
+    @Test
+    public void deletedFireIsCleared() {
+        diff.update(Arrays.asList(row("ESP_1", "fire", "Lab", "A"), row("ESP_2", "failed")));
+
+        List<StatusDiff.Transition> out = diff.update(Collections.emptyList());
+
+        assertEquals(Collections.singletonList("FIRE_CLEARED ESP_1"), describe(out));
+        // Rebuilt from the registry, since the row itself is gone
+        assertEquals(DeviceStatus.FIRE, out.get(0).row.state());
+        assertEquals("Lab", out.get(0).row.location);
+        assertFalse(diff.hasFire());
+        assertTrue(offline().isEmpty());
+    }
+
+    @Test
+    public void returningDeviceStartsFromScratch() {
+        diff.update(Collections.singletonList(row("ESP_1", "fire")));
+        diff.update(Collections.emptyList());
+
+        assertEquals(Collections.singletonList("FIRE_STARTED ESP_1"),
+                describe(diff.update(Collections.singletonList(row("ESP_1", "fire")))));
+    }
+
+    @Test
+    public void duplicateIdsKeepTheFirstRow() {
+        List<StatusDiff.Transition> out = diff.update(Arrays.asList(
+                row("ESP_1", "fire"), row("ESP_1", "safe"), row(null, "fire")));
+
+        assertEquals(Collections.singletonList("FIRE_STARTED ESP_1"), describe(out));
+        assertEquals(Collections.singletonList("ESP_1"), fires());
+    }
+
+    @Test
+    public void displayNameMatchesRow() {
+        ApiModels.StatusRow fire = row("ESP_1", "fire", "Lab", "A");
+        diff.update(Collections.singletonList(fire));
+
+        assertEquals(fire.getDisplayName(), diff.displayName(diff.firstFire()));
+    }
+}
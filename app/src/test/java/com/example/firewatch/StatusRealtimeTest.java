@@ -0,0 +1,237 @@
+package com.example.firewatch;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StatusRealtimeTest {
+
+    private static final String KEY = "test-key";
+    private static final long TIMEOUT_S = 5;
+
+    private MockWebServer server;
+    private final OkHttpClient client = new OkHttpClient();
+    private final RecordingListener listener = new RecordingListener();
+    private StatusRealtime realtime;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (realtime != null) realtime.stop();
+        server.shutdown();
+        client.dispatcher().executorService().shutdown();
+    }
+
+    private void start(long heartbeatMs, long... backoffMs) {
+        realtime = new StatusRealtime(client, server.url("/").toString(), KEY, listener,
+                heartbeatMs, backoffMs);
+        realtime.start();
+    }
+
+    @Test
+    public void joinsStatusChannel() throws Exception {
+        FakeRealtime fake = new FakeRealtime();
+        server.enqueue(new MockResponse().withWebSocketUpgrade(fake));
+        start(60_000, 1_000);
+
+        RecordedRequest request = server.takeRequest(TIMEOUT_S, TimeUnit.SECONDS);
+        assertNotNull(request);
+        assertEquals("/realtime/v1/websocket", request.getRequestUrl().encodedPath());
+        assertEquals(KEY, request.getRequestUrl().queryParameter("apikey"));
+        assertEquals("1.0.0", request.getRequestUrl().queryParameter("vsn"));
+
+        JsonObject join = fake.received.poll(TIMEOUT_S, TimeUnit.SECONDS);
+        assertNotNull(join);
+        assertEquals(StatusRealtime.TOPIC, join.get("topic").getAsString());
+        assertEquals("phx_join", join.get("event").getAsString());
+        JsonObject payload = join.getAsJsonObject("payload");
+        assertEquals(KEY, payload.get("access_token").getAsString());
+        JsonArray changes = payload.getAsJsonObject("config").getAsJsonArray("postgres_changes");
+        assertEquals(1, changes.size());
+        JsonObject change = changes.get(0).getAsJsonObject();
+        assertEquals("*", change.get("event").getAsString());
+        assertEquals("public", change.get("schema").getAsString());
+        assertEquals("status", change.get("table").getAsString());
+
+        assertEquals("subscribed", listener.events.poll(TIMEOUT_S, TimeUnit.SECONDS));
+        assertTrue(realtime.isSubscribed());
+    }
+
+    @Test
+    public void dispatchesChanges() throws Exception {
+        FakeRealtime fake = new FakeRealtime();
+        server.enqueue(new MockResponse().withWebSocketUpgrade(fake));
+        start(60_000, 1_000);
+        assertEquals("subscribed", listener.events.poll(TIMEOUT_S, TimeUnit.SECONDS));
+
+        fake.sendChange("INSERT", "record", "ESP_1", "FIRE");
+        fake.sendChange("UPDATE", "record", "ESP_2", "SAFE");
+        fake.sendChange("DELETE", "old_record", "ESP_3", null);
+
+        assertEquals("changed ESP_1 FIRE", listener.events.poll(TIMEOUT_S, TimeUnit.SECONDS));
+        assertEquals("changed ESP_2 SAFE", listener.events.poll(TIMEOUT_S, TimeUnit.SECONDS));
+        assertEquals("deleted ESP_3", listener.events.poll(TIMEOUT_S, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void unansweredHeartbeatDisconnects() throws Exception {
+        FakeRealtime fake = new FakeRealtime();
+        fake.answerHeartbeats = false;
+        server.enqueue(new MockResponse().withWebSocketUpgrade(fake));
+        // Only one connection is served; the reconnect fails and is retried slowly
+        start(100, 60_000);
+        assertEquals("subscribed", listener.events.poll(TIMEOUT_S, TimeUnit.SECONDS));
+
+        JsonObject join = fake.received.poll(TIMEOUT_S, TimeUnit.SECONDS);
+        assertEquals("phx_join", join.get("event").getAsString());
+        JsonObject heartbeat = fake.received.poll(TIMEOUT_S, TimeUnit.SECONDS);
+        assertNotNull(heartbeat);
+        assertEquals("phoenix", heartbeat.get("topic").getAsString());
+        assertEquals("heartbeat", heartbeat.get("event").getAsString());
+
+        assertEquals("disconnected error", listener.events.poll(TIMEOUT_S, TimeUnit.SECONDS));
+        assertTrue(!realtime.isSubscribed());
+    }
+
+    @Test
+    public void answeredHeartbeatsKeepTheConnection() throws Exception {
+        FakeRealtime fake = new FakeRealtime();
+        server.enqueue(new MockResponse().withWebSocketUpgrade(fake));
+        start(50, 60_000);
+        assertEquals("subscribed", listener.events.poll(TIMEOUT_S, TimeUnit.SECONDS));
+
+        // Several heartbeat periods pass without a disconnect
+        assertNull(listener.events.poll(400, TimeUnit.MILLISECONDS));
+        assertTrue(realtime.isSubscribed());
+    }
+
+    @Test
+    public void reconnectsWithBackoffAndRejoins() throws Exception {
+        FakeRealtime first = new FakeRealtime();
+        FakeRealtime second = new FakeRealtime();
+        server.enqueue(new MockResponse().withWebSocketUpgrade(first));
+        server.enqueue(new MockResponse().withWebSocketUpgrade(second));
+        start(60_000, 200);
+        assertEquals("subscribed", listener.events.poll(TIMEOUT_S, TimeUnit.SECONDS));
+        server.takeRequest(TIMEOUT_S, TimeUnit.SECONDS);
+
+        long droppedAt = System.nanoTime();
+        first.socket.close(1001, "going away");
+        assertEquals("disconnected", listener.events.poll(TIMEOUT_S, TimeUnit.SECONDS));
+
+        // A new socket after the backoff, joining the channel again
+        assertNotNull(server.takeRequest(TIMEOUT_S, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - droppedAt) >= 200);
+        JsonObject join = second.received.poll(TIMEOUT_S, TimeUnit.SECONDS);
+        assertNotNull(join);
+        assertEquals("phx_join", join.get("event").getAsString());
+        assertEquals("subscribed", listener.events.poll(TIMEOUT_S, TimeUnit.SECONDS));
+        assertTrue(realtime.isSubscribed());
+    }
+
+    /**
+     * Server side of the Phoenix protocol: accepts joins and, optionally, heartbeats
+     */
+    private static class FakeRealtime extends WebSocketListener {
+        final BlockingQueue<JsonObject> received = new LinkedBlockingQueue<>();
+        volatile boolean answerHeartbeats = true;
+        volatile WebSocket socket;
+
+        @Override
+        public void onOpen(@NonNull WebSocket webSocket, @NonNull Response response) {
+            socket = webSocket;
+        }
+
+        @Override
+        public void onMessage(@NonNull WebSocket webSocket, @NonNull String text) {
+            JsonObject msg = JsonParser.parseString(text).getAsJsonObject();
+            received.add(msg);
+            String event = msg.get("event").getAsString();
+            if ("phx_join".equals(event) || ("heartbeat".equals(event) && answerHeartbeats)) {
+                JsonObject payload = new JsonObject();
+                payload.addProperty("status", "ok");
+                payload.add("response", new JsonObject());
+                JsonObject reply = new JsonObject();
+                reply.add("topic", msg.get("topic"));
+                reply.addProperty("event", "phx_reply");
+                reply.add("payload", payload);
+                reply.add("ref", msg.get("ref"));
+                webSocket.send(reply.toString());
+            }
+        }
+
+        @Override
+        public void onClosing(@NonNull WebSocket webSocket, int code, @NonNull String reason) {
+            webSocket.close(1000, null);
+        }
+
+        void sendChange(String type, String recordKey, String esp32Id, @Nullable String status) {
+            JsonObject record = new JsonObject();
+            record.addProperty("esp32_id", esp32Id);
+            if (status != null) record.addProperty("last_status", status);
+            JsonObject data = new JsonObject();
+            data.addProperty("type", type);
+            data.add(recordKey, record);
+            JsonObject payload = new JsonObject();
+            payload.add("data", data);
+            JsonObject msg = new JsonObject();
+            msg.addProperty("topic", StatusRealtime.TOPIC);
+            msg.addProperty("event", "postgres_changes");
+            msg.add("payload", payload);
+            socket.send(msg.toString());
+        }
+    }
+
+    private static class RecordingListener implements StatusRealtime.Listener {
+        final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onSubscribed() {
+            events.add("subscribed");
+        }
+
+        @Override
+        public void onStatusChanged(ApiModels.StatusRow row) {
+            events.add("changed " + row.esp32_id + " " + row.last_status);
+        }
+
+        @Override
+        public void onStatusDeleted(String esp32Id) {
+            events.add("deleted " + esp32Id);
+        }
+
+        @Override
+        public void onDisconnected(@Nullable Throwable t) {
+            events.add(t == null ? "disconnected" : "disconnected error");
+        }
+    }
+}
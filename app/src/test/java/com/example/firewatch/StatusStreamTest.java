@@ -0,0 +1,92 @@
+package com.example.firewatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StatusStreamTest {
+
+    private final List<Long> seen = new ArrayList<>();
+    private final StatusStream.Listener listener = update -> seen.add(update.seq);
+
+    @Before
+    public void setUp() {
+        StatusStream.reset();
+        StatusStream.subscribe(listener);
+    }
+
+    @After
+    public void tearDown() {
+        StatusStream.unsubscribe(listener);
+        StatusStream.reset();
+    }
+
+    private static StatusStream.Update update(long seq) {
+        return new StatusStream.Update(seq, Collections.emptyList(), Collections.emptyList());
+    }
+
+    @Test
+    public void deliversInOrderAndDropsOvertakenUpdates() {
+        long first = StatusStream.nextSeq();
+        long second = StatusStream.nextSeq();
+        StatusStream.deliver(update(second));
+        StatusStream.deliver(update(first));
+
+        assertEquals(Collections.singletonList(second), seen);
+        assertEquals(second, StatusStream.latest().seq);
+    }
+
+    @Test
+    public void newSubscriberGetsLatestImmediately() {
+        long seq = StatusStream.nextSeq();
+        StatusStream.deliver(update(seq));
+
+        List<Long> late = new ArrayList<>();
+        StatusStream.Listener other = u -> late.add(u.seq);
+        StatusStream.subscribe(other);
+        StatusStream.unsubscribe(other);
+
+        assertEquals(Collections.singletonList(seq), late);
+    }
+
+    @Test
+    public void restartedServiceIsFollowed() {
+        // First service instance
+        StatusStream.deliver(update(StatusStream.nextSeq()));
+        StatusStream.deliver(update(StatusStream.nextSeq()));
+        long inFlight = StatusStream.nextSeq();
+
+        // Alerts disabled: the service stops
+        StatusStream.reset();
+        assertNull(StatusStream.latest());
+
+        // A subscriber arriving now isn't handed the dead service's snapshot
+        List<Long> late = new ArrayList<>();
+        StatusStream.Listener other = u -> late.add(u.seq);
+        StatusStream.subscribe(other);
+        assertTrue(late.isEmpty());
+
+        // Whatever the old service still had on the way is dropped
+        StatusStream.deliver(update(inFlight));
+        assertNull(StatusStream.latest());
+
+        // Alerts enabled again: the new service's first snapshots reach everyone
+        long restarted = StatusStream.nextSeq();
+        StatusStream.deliver(update(restarted));
+        StatusStream.deliver(update(StatusStream.nextSeq()));
+        StatusStream.unsubscribe(other);
+
+        assertEquals(4, seen.size());
+        assertEquals(restarted, (long) seen.get(2));
+        assertEquals(2, late.size());
+        assertEquals(restarted, (long) late.get(0));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.firewatch;
+
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TimestampsTest {
+
+    // 2025-10-01T12:34:56Z
+    private static final long NOON = 1_759_322_096_000L;
+
+    @Test
+    public void parsesPostgrestTimestamps() {
+        assertEquals(NOON + 123, Timestamps.parse("2025-10-01T12:34:56.123456+00:00"));
+        assertEquals(NOON, Timestamps.parse("2025-10-01T12:34:56Z"));
+        assertEquals(NOON, Timestamps.parse("2025-10-01 12:34:56"));
+        assertEquals(NOON - 56_000, Timestamps.parse("2025-10-01T12:34"));
+        assertEquals(NOON + 500, Timestamps.parse("2025-10-01T12:34:56,5z"));
+    }
+
+    @Test
+    public void appliesOffsets() {
+        assertEquals(NOON, Timestamps.parse("2025-10-01T14:34:56+02:00"));
+        assertEquals(NOON, Timestamps.parse("2025-10-01T14:34:56+0200"));
+        assertEquals(NOON, Timestamps.parse("2025-10-01T14:34:56+02"));
+        assertEquals(NOON, Timestamps.parse("2025-10-01T07:04:56-05:30"));
+    }
+
+    @Test
+    public void handlesCalendarEdges() {
+        assertEquals(0L, Timestamps.parse("1970-01-01T00:00:00Z"));
+        assertEquals(-1000L, Timestamps.parse("1969-12-31T23:59:59Z"));
+        assertEquals(951_782_400_000L, Timestamps.parse("2000-02-29T00:00:00Z"));
+        // Leap second folds into the one before it
+        assertEquals(Timestamps.parse("2016-12-31T23:59:59Z"), Timestamps.parse("2016-12-31T23:59:60Z"));
+    }
+
+    @Test
+    public void rejectsMalformedInput() {
+        String[] bad = {
+                null, "", "2025-10-01", "2025/10/01T12:34:56", "2025-10-01X12:34:56",
+                "2025-13-01T12:34:56", "2025-02-29T12:34:56", "2025-10-01T24:00:00",
+                "2025-10-01T12:34:56.", "2025-10-01T12:34:56+2", "2025-10-01T12:34:56 UTC",
+                "2025-10-01T12:34:56Zjunk",
+        };
+        for (String s : bad) assertEquals(s, Timestamps.UNKNOWN, Timestamps.parse(s));
+    }
+
+    @Test
+    public void formatsInDefaultZone() {
+        TimeZone saved = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            assertEquals("2025-10-01 12:34:56", Timestamps.format(NOON, true));
+            assertEquals("2025-10-01 12:34", Timestamps.format(NOON, false));
+            assertNull(Timestamps.format(Timestamps.UNKNOWN, true));
+            assertEquals("raw", Timestamps.formatOr(Timestamps.UNKNOWN, true, "raw"));
+            assertEquals("Unknown", Timestamps.formatOr(Timestamps.UNKNOWN, false, null));
+        } finally {
+            TimeZone.setDefault(saved);
+        }
+    }
+}
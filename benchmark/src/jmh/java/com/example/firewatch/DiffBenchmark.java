@@ -0,0 +1,63 @@
+package com.example.firewatch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of folding a poll into StatusDiff for large fleets. Two snapshots
+ * alternate, differing in one device in a hundred, so every call does the
+ * full comparison and reports a realistic handful of transitions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DiffBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int devices;
+
+    private List<ApiModels.StatusRow> quiet;
+    private List<ApiModels.StatusRow> burning;
+    private StatusDiff diff;
+    private boolean flip;
+
+    @Setup
+    public void setup() {
+        quiet = snapshot(devices, false);
+        burning = snapshot(devices, true);
+        diff = new StatusDiff();
+        diff.update(quiet);
+    }
+
+    @Benchmark
+    public List<StatusDiff.Transition> update() {
+        flip = !flip;
+        return diff.update(flip ? burning : quiet);
+    }
+
+    private static List<ApiModels.StatusRow> snapshot(int n, boolean fires) {
+        List<ApiModels.StatusRow> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            ApiModels.StatusRow row = new ApiModels.StatusRow();
+            // Same id instances in both snapshots, as StringPool hands out
+            row.esp32_id = StringPool.intern("ESP32_" + i);
+            row.last_status = fires && i % 100 == 0 ? "fire" : "safe";
+            row.last_updated = "2025-10-01T12:34:56.123456+00:00";
+            row.location = StringPool.intern("F" + (i % 8 + 1) + "-R" + (i % 40));
+            row.block = "A";
+            row.check = true;
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.firewatch;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse throughput of status and log responses: Gson's reflective adapter
+ * (what GsonConverterFactory.create() used) against ModelAdapters.
+ *
+ * Input is read the way Retrofit does it, through a Reader over the response
+ * bytes. Run with -prof gc (on by default in build.gradle) for bytes/op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParseBenchmark {
+
+    private static final String[] STATUSES = {"safe", "safe", "safe", "fire", "failed"};
+
+    @Param({"10", "1000", "100000"})
+    public int rows;
+
+    private byte[] statusJson;
+    private byte[] logJson;
+
+    private TypeAdapter<List<ApiModels.StatusRow>> reflectiveStatus;
+    private TypeAdapter<List<ApiModels.StatusRow>> streamingStatus;
+    private TypeAdapter<List<ApiModels.LogRow>> reflectiveLogs;
+    private TypeAdapter<List<ApiModels.LogRow>> streamingLogs;
+    private Gson reflective;
+    private Gson streaming;
+
+    @Setup
+    public void setup() {
+        statusJson = statusResponse(rows).getBytes(StandardCharsets.UTF_8);
+        logJson = logResponse(rows).getBytes(StandardCharsets.UTF_8);
+
+        reflective = new Gson();
+        streaming = ModelAdapters.gson();
+        reflectiveStatus = reflective.getAdapter(new TypeToken<List<ApiModels.StatusRow>>() {});
+        streamingStatus = streaming.getAdapter(new TypeToken<List<ApiModels.StatusRow>>() {});
+        reflectiveLogs = reflective.getAdapter(new TypeToken<List<ApiModels.LogRow>>() {});
+        streamingLogs = streaming.getAdapter(new TypeToken<List<ApiModels.LogRow>>() {});
+    }
+
+    @Benchmark
+    public List<ApiModels.StatusRow> statusReflective() throws IOException {
+        List<ApiModels.StatusRow> result = reflectiveStatus.read(reflective.newJsonReader(reader(statusJson)));
+        // The old path still pays for classifying last_status, just later
+        for (ApiModels.StatusRow row : result) row.state();
+        return result;
+    }
+
+    @Benchmark
+    public List<ApiModels.StatusRow> statusStreaming() throws IOException {
+        return streamingStatus.read(streaming.newJsonReader(reader(statusJson)));
+    }
+
+    @Benchmark
+    public List<ApiModels.LogRow> logsReflective() throws IOException {
+        List<ApiModels.LogRow> result = reflectiveLogs.read(reflective.newJsonReader(reader(logJson)));
+        for (ApiModels.LogRow row : result) row.state();
+        return result;
+    }
+
+    @Benchmark
+    public List<ApiModels.LogRow> logsStreaming() throws IOException {
+        return streamingLogs.read(streaming.newJsonReader(reader(logJson)));
+    }
+
+    private static InputStreamReader reader(byte[] json) {
+        return new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8);
+    }
+
+    private static String statusResponse(int n) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"esp32_id\":\"ESP32_").append(i)
+                    .append("\",\"last_status\":\"").append(STATUSES[i % STATUSES.length])
+                    .append("\",\"last_updated\":\"2025-10-01T12:34:56.123456+00:00\"")
+                    .append(",\"location\":\"F").append(i % 8 + 1).append("-R").append(i % 40)
+                    .append("\",\"block\":\"A\",\"check\":true}");
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String logResponse(int n) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"id\":").append(1_000_000 + i)
+                    .append(",\"esp32_id\":\"ESP32_").append(i % 64)
+                    .append("\",\"status\":\"").append(STATUSES[i % STATUSES.length])
+                    .append("\",\"timestamp\":\"2025-10-01T12:34:56.123456+00:00\"")
+                    .append(",\"location\":\"F").append(i % 8 + 1).append("-R").append(i % 40)
+                    .append("\",\"block\":\"A\"}");
+        }
+        return sb.append(']').toString();
+    }
+}